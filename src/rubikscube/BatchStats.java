@@ -0,0 +1,145 @@
+package rubikscube;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Aggregate of a batch run: per-solve latency (LatencyHistogram, microseconds), solution
+ * length distribution and outcome counts. Any number of threads may record. "Unsolved"
+ * means the strategy scheduler returned without a solution, in practice its time budget.
+ * Summaries:
+ *   summaryLine()  - one line, also printed every -Dstats.intervalSec seconds by maybeReport
+ *   toText()       - percentiles, throughput and the length histogram
+ *   toJson()       - the same numbers as one JSON object; finish() writes it to -Dstats.json
+ */
+public final class BatchStats {
+
+    private static final long INTERVAL_SEC = Long.getLong("stats.intervalSec", 0L);
+    private static final String JSON_PATH = System.getProperty("stats.json");
+
+    public static final int MAX_LENGTH = 40;
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9, 100};
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final AtomicLongArray lengths = new AtomicLongArray(MAX_LENGTH + 1);
+    private final AtomicLong solved = new AtomicLong(), unsolved = new AtomicLong(), invalid = new AtomicLong();
+    private final long startNanos = System.nanoTime();
+    private final AtomicLong lastReportNanos = new AtomicLong(startNanos);
+
+    // solution in spaced notation; null or empty = unsolved. Lengths above MAX_LENGTH share the last slot
+    public void record(long micros, String solution) {
+        latency.record(micros);
+        if (solution == null || solution.isEmpty()) {
+            unsolved.incrementAndGet();
+        } else {
+            solved.incrementAndGet();
+            lengths.incrementAndGet(Math.min(moveCount(solution), MAX_LENGTH));
+        }
+    }
+
+    public void recordInvalid(long micros) {
+        latency.record(micros);
+        invalid.incrementAndGet();
+    }
+
+    private static int moveCount(String s) {
+        int n = 0;
+        boolean inMove = false;
+        for (int i = 0; i < s.length(); i++) {
+            boolean space = s.charAt(i) == ' ';
+            if (!space && !inMove) n++;
+            inMove = !space;
+        }
+        return n;
+    }
+
+    public long getCount() { return latency.getCount(); }
+    public LatencyHistogram getLatency() { return latency; }
+
+    private double elapsedSec() { return (System.nanoTime() - startNanos) / 1e9; }
+
+    // Prints summaryLine() when -Dstats.intervalSec has passed since the last report
+    public void maybeReport() {
+        if (INTERVAL_SEC <= 0) return;
+        long now = System.nanoTime(), last = lastReportNanos.get();
+        if (now - last < INTERVAL_SEC * 1_000_000_000L || !lastReportNanos.compareAndSet(last, now)) return;
+        System.out.println("[stats] " + summaryLine());
+    }
+
+    public String summaryLine() {
+        long n = getCount();
+        return String.format(Locale.ROOT, "%d solves (%d unsolved, %d invalid), %.2f/s, p50 %.1f ms, p99 %.1f ms, p99.9 %.1f ms, max %.1f ms",
+                n, unsolved.get(), invalid.get(), n / Math.max(elapsedSec(), 1e-9),
+                latency.valueAtPercentile(50) / 1e3, latency.valueAtPercentile(99) / 1e3,
+                latency.valueAtPercentile(99.9) / 1e3, latency.getMax() / 1e3);
+    }
+
+    public String toText() {
+        long n = getCount();
+        StringBuilder sb = new StringBuilder();
+        double sec = elapsedSec();
+        sb.append(String.format(Locale.ROOT, "solves %d: solved %d, unsolved %d (%.2f%%), invalid %d%n",
+                n, solved.get(), unsolved.get(), n == 0 ? 0 : 100.0 * unsolved.get() / n, invalid.get()));
+        sb.append(String.format(Locale.ROOT, "wall %.3f s, throughput %.2f solves/s%n", sec, n / Math.max(sec, 1e-9)));
+        sb.append(String.format(Locale.ROOT, "latency ms: min %.3f  mean %.3f", latency.getMin() / 1e3, latency.getMean() / 1e3));
+        for (double p : PERCENTILES) {
+            sb.append(String.format(Locale.ROOT, "  %s %.3f", p == 100 ? "max" : "p" + fmt(p), latency.valueAtPercentile(p) / 1e3));
+        }
+        sb.append(System.lineSeparator());
+        long longest = 1;
+        for (int i = 0; i <= MAX_LENGTH; i++) longest = Math.max(longest, lengths.get(i));
+        sb.append("solution length:").append(System.lineSeparator());
+        for (int i = 0; i <= MAX_LENGTH; i++) {
+            long c = lengths.get(i);
+            if (c == 0) continue;
+            sb.append(String.format(Locale.ROOT, "  %2d%s %8d %s%n", i, i == MAX_LENGTH ? "+" : " ", c,
+                    "#".repeat((int) Math.max(1, 40 * c / longest))));
+        }
+        return sb.toString();
+    }
+
+    public String toJson() {
+        long n = getCount();
+        StringBuilder sb = new StringBuilder("{");
+        sb.append("\"solves\":").append(n)
+          .append(",\"solved\":").append(solved.get())
+          .append(",\"unsolved\":").append(unsolved.get())
+          .append(",\"invalid\":").append(invalid.get())
+          .append(",\"wallSeconds\":").append(String.format(Locale.ROOT, "%.3f", elapsedSec()))
+          .append(",\"solvesPerSecond\":").append(String.format(Locale.ROOT, "%.3f", n / Math.max(elapsedSec(), 1e-9)))
+          .append(",\"latencyMicros\":{\"min\":").append(latency.getMin())
+          .append(",\"mean\":").append(String.format(Locale.ROOT, "%.1f", latency.getMean()));
+        for (double p : PERCENTILES) {
+            sb.append(",\"").append(p == 100 ? "max" : "p" + fmt(p)).append("\":").append(latency.valueAtPercentile(p));
+        }
+        sb.append("},\"lengths\":{");
+        boolean first = true;
+        for (int i = 0; i <= MAX_LENGTH; i++) {
+            long c = lengths.get(i);
+            if (c == 0) continue;
+            if (!first) sb.append(',');
+            sb.append('"').append(i).append("\":").append(c);
+            first = false;
+        }
+        return sb.append("}}").toString();
+    }
+
+    private static String fmt(double p) {
+        return p == Math.rint(p) ? Long.toString((long) p) : Double.toString(p);
+    }
+
+    // End of a batch: text summary to stdout, JSON to -Dstats.json when set
+    public void finish() {
+        System.out.print(toText());
+        if (JSON_PATH == null) return;
+        try {
+            Files.writeString(Paths.get(JSON_PATH), toJson() + System.lineSeparator());
+        } catch (IOException e) {
+            System.err.println("could not write " + JSON_PATH + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,934 @@
+package rubikscube;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Corpus benchmarks over testcases/scrambleNN.txt.
+ * Usage: java rubikscube.Benchmarks <mode> [first last]
+ *   tt        - phase-1 nodes and latency with and without the phase-1 transposition table
+ *   pipeline  - serial solve vs PipelinedSolver latency and length
+ *   fringe    - phase-2 nodes and latency, plain IDA* vs stored-frontier search
+ *   fast      - latency vs solution length for weighted IDA* (-Dweights=1,1.5,2)
+ *   metric    - face-turn search vs MoveCostModel.COMPACT: moves, emitted quarter turns, latency
+ *   budget    - outcome under a SolveBudget (-Dbudget.ms=1000, -Dbudget.nodes=unlimited)
+ *   scheduler - StrategyScheduler latency over -Drounds=2 passes of the corpus, with hedge counts
+ *   resolve   - SolveContext repair latency after 1, 2 and 6 random wrong moves halfway through the plan
+ *   packed    - replay throughput: per-quarter-turn CubieCube.move vs table-driven applyMove vs PackedCube
+ *   codec     - CoordCodec vs the old coordinate methods (LegacyCoordinates): equivalence, ns/op, bytes/op
+ *   symcache  - SymmetryCache: solve each case, then look up random symmetric/inverse variants
+ *   facelets  - FaceCube lookup tables vs the old match3 scans (LegacyFacelets): round trips, nets/s, bytes/net
+ *   stream    - CubeStreamReader on a temp file of -Dcubes=1000000 lines vs readAllLines + parseNet per net
+ *   solbin    - SolutionWriter/SolutionReader round trip of -Dcubes=1000000 random solutions: size and MB/s vs text
+ *   heuristics - HeuristicProfiler over the corpus: how often each lookup decides the bound or a cutoff (needs -Dheuristic.profile=true)
+ */
+public class Benchmarks {
+
+    public static void main(String[] args) throws Exception {
+        String mode = args.length > 0 ? args[0] : "tt";
+        int first = args.length > 2 ? Integer.parseInt(args[1]) : 1;
+        int last = args.length > 2 ? Integer.parseInt(args[2]) : 40;
+
+        MoveTables.init();
+        LightPruningTables.buildAllBlocking();
+        List<CubieCube> corpus = loadTestcases(first, last);
+
+        switch (mode) {
+            case "tt" -> benchPhase1TT(corpus, first);
+            case "pipeline" -> benchPipeline(corpus, first);
+            case "fringe" -> benchFringe(corpus, first);
+            case "fast" -> benchWeighted(corpus);
+            case "metric" -> benchMetric(corpus, first);
+            case "budget" -> benchBudget(corpus, first);
+            case "scheduler" -> benchScheduler(corpus, first);
+            case "resolve" -> benchResolve(corpus, first);
+            case "packed" -> benchPacked();
+            case "codec" -> benchCodec();
+            case "symcache" -> benchSymCache(corpus, first);
+            case "facelets" -> benchFacelets(corpus);
+            case "stream" -> benchStream(corpus);
+            case "solbin" -> benchSolutionFile();
+            case "heuristics" -> benchHeuristics(corpus, first);
+            default -> System.out.println("unknown mode: " + mode);
+        }
+    }
+
+    static List<CubieCube> loadTestcases(int first, int last) throws Exception {
+        List<CubieCube> out = new ArrayList<>();
+        for (int i = first; i <= last; i++) {
+            List<String> lines = Files.readAllLines(Paths.get(String.format("testcases/scramble%02d.txt", i)));
+            out.add(NetToCubie.fromFacelets(Solver.parseNetForVerify(lines)));
+        }
+        return out;
+    }
+
+    static void applySequence(CubieCube c, String seq) {
+        int[] mv = new int[seq.length()], pw = new int[seq.length()];
+        int n = Moves.parseSequence(seq, mv, pw);
+        for (int i = 0; i < n; i++) c.applyMove(mv[i], pw[i]);
+    }
+
+    private static void benchPhase1TT(List<CubieCube> corpus, int first) {
+        Phase1TranspositionTable table = new Phase1TranspositionTable(22);
+        long nodesOff = 0, nodesOn = 0, nanosOff = 0, nanosOn = 0, totalOff = 0, totalOn = 0;
+
+        System.out.println("case        p1nodes(off)  p1nodes(on)   p1ms(off)  p1ms(on)  total(off)  total(on)");
+        for (int i = 0; i < corpus.size(); i++) {
+            CubieCube cc = corpus.get(i);
+
+            TwoPhaseIDA.PHASE1_TT = null;
+            TwoPhaseIDA off = new TwoPhaseIDA();
+            long t0 = System.nanoTime();
+            String solOff = off.solve(new CubieCube(cc));
+            long tOff = System.nanoTime() - t0;
+
+            TwoPhaseIDA.PHASE1_TT = table;
+            TwoPhaseIDA on = new TwoPhaseIDA();
+            t0 = System.nanoTime();
+            String solOn = on.solve(new CubieCube(cc));
+            long tOn = System.nanoTime() - t0;
+            TwoPhaseIDA.PHASE1_TT = null;
+
+            nodesOff += off.getPhase1Nodes();
+            nodesOn += on.getPhase1Nodes();
+            nanosOff += off.getPhase1Nanos();
+            nanosOn += on.getPhase1Nanos();
+            totalOff += tOff;
+            totalOn += tOn;
+            System.out.printf("scramble%02d %13d %12d %11.3f %9.3f %11.3f %10.3f%s%n", first + i,
+                    off.getPhase1Nodes(), on.getPhase1Nodes(),
+                    off.getPhase1Nanos() / 1e6, on.getPhase1Nanos() / 1e6,
+                    tOff / 1e6, tOn / 1e6, solOff.equals(solOn) ? "" : "  (different solution)");
+        }
+        System.out.printf("total      %13d %12d %11.3f %9.3f %11.3f %10.3f%n",
+                nodesOff, nodesOn, nanosOff / 1e6, nanosOn / 1e6, totalOff / 1e6, totalOn / 1e6);
+    }
+
+    private static void benchPipeline(List<CubieCube> corpus, int first) throws Exception {
+        int workers = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        long serialTotal = 0, pipeTotal = 0;
+        System.out.println("pipeline workers: " + workers);
+        System.out.println("case        serial(ms)  len   pipelined(ms)  len");
+        try (PipelinedSolver pipe = new PipelinedSolver(workers, 4 * workers, 0)) {
+            for (int i = 0; i < corpus.size(); i++) {
+                CubieCube cc = corpus.get(i);
+                long t0 = System.nanoTime();
+                String serial = new TwoPhaseIDA().solve(new CubieCube(cc));
+                long tSerial = System.nanoTime() - t0;
+                t0 = System.nanoTime();
+                String piped = pipe.solve(cc);
+                long tPipe = System.nanoTime() - t0;
+                serialTotal += tSerial;
+                pipeTotal += tPipe;
+                System.out.printf("scramble%02d %11.3f %4d %15.3f %4d%n", first + i,
+                        tSerial / 1e6, moveCount(serial), tPipe / 1e6, moveCount(piped));
+            }
+        }
+        System.out.printf("total      %11.3f      %15.3f%n", serialTotal / 1e6, pipeTotal / 1e6);
+    }
+
+    static int moveCount(String sol) {
+        return sol == null || sol.isBlank() ? 0 : sol.trim().split("\\s+").length;
+    }
+
+    private static void benchFringe(List<CubieCube> corpus, int first) {
+        long nodesIda = 0, nodesFringe = 0, nanosIda = 0, nanosFringe = 0;
+        System.out.println("case        p2nodes(ida)  p2nodes(fringe)    ida(ms)  fringe(ms)  len(ida) len(fringe)");
+        for (int i = 0; i < corpus.size(); i++) {
+            CubieCube cc = corpus.get(i);
+
+            TwoPhaseIDA ida = new TwoPhaseIDA();
+            ida.setUseFringePhase2(false);
+            long t0 = System.nanoTime();
+            String solIda = ida.solve(new CubieCube(cc));
+            long tIda = System.nanoTime() - t0;
+
+            TwoPhaseIDA fr = new TwoPhaseIDA();
+            fr.setUseFringePhase2(true);
+            t0 = System.nanoTime();
+            String solFringe = fr.solve(new CubieCube(cc));
+            long tFringe = System.nanoTime() - t0;
+
+            nodesIda += ida.getPhase2Nodes();
+            nodesFringe += fr.getPhase2Nodes();
+            nanosIda += tIda;
+            nanosFringe += tFringe;
+            System.out.printf("scramble%02d %13d %16d %10.3f %11.3f %9d %10d%s%n", first + i,
+                    ida.getPhase2Nodes(), fr.getPhase2Nodes(), tIda / 1e6, tFringe / 1e6,
+                    moveCount(solIda), moveCount(solFringe),
+                    fr.getFringeFallbacks() > 0 ? "  (fell back to IDA*)" : "");
+        }
+        System.out.printf("total      %13d %16d %10.3f %11.3f%n", nodesIda, nodesFringe, nanosIda / 1e6, nanosFringe / 1e6);
+    }
+
+    private static void benchWeighted(List<CubieCube> corpus) {
+        String[] weights = System.getProperty("weights", "1,1.5,2").split(",");
+        System.out.println("weight   p50(ms)   p90(ms)   max(ms)  mean len  max len  solved");
+        for (String w : weights) {
+            double weight = Double.parseDouble(w.trim());
+            long[] nanos = new long[corpus.size()];
+            int lenSum = 0, lenMax = 0, solved = 0;
+            for (int i = 0; i < corpus.size(); i++) {
+                TwoPhaseIDA ida = new TwoPhaseIDA();
+                ida.setWeight(weight);
+                long t0 = System.nanoTime();
+                String sol = ida.solve(new CubieCube(corpus.get(i)));
+                nanos[i] = System.nanoTime() - t0;
+                int len = moveCount(sol);
+                if (!sol.isEmpty() || corpus.get(i).isSolved()) solved++;
+                lenSum += len;
+                lenMax = Math.max(lenMax, len);
+            }
+            java.util.Arrays.sort(nanos);
+            System.out.printf("%6.2f %9.3f %9.3f %9.3f %9.2f %8d %4d/%d%n", weight,
+                    nanos[nanos.length / 2] / 1e6, nanos[(int) (nanos.length * 0.9)] / 1e6,
+                    nanos[nanos.length - 1] / 1e6, lenSum / (double) corpus.size(), lenMax,
+                    solved, corpus.size());
+        }
+    }
+
+    private static void benchMetric(List<CubieCube> corpus, int first) {
+        long ftmNanos = 0, costNanos = 0;
+        int ftmOut = 0, costOut = 0;
+        System.out.println("case        ftm moves  ftm out   ftm(ms)   cost moves  cost out  cost(ms)");
+        for (int i = 0; i < corpus.size(); i++) {
+            CubieCube cc = corpus.get(i);
+            long t0 = System.nanoTime();
+            String ftm = new TwoPhaseIDA().solve(new CubieCube(cc));
+            long tFtm = System.nanoTime() - t0;
+
+            TwoPhaseIDA weighted = new TwoPhaseIDA();
+            weighted.setCostModel(MoveCostModel.COMPACT);
+            t0 = System.nanoTime();
+            String cost = weighted.solve(new CubieCube(cc));
+            long tCost = System.nanoTime() - t0;
+
+            int outFtm = CompactMoveEncoder.programToCompact(ftm).length();
+            int outCost = CompactMoveEncoder.programToCompact(cost).length();
+            ftmNanos += tFtm;
+            costNanos += tCost;
+            ftmOut += outFtm;
+            costOut += outCost;
+            System.out.printf("scramble%02d %10d %8d %9.3f %12d %9d %9.3f%n", first + i,
+                    moveCount(ftm), outFtm, tFtm / 1e6, moveCount(cost), outCost, tCost / 1e6);
+        }
+        System.out.printf("total      %19d %9.3f %22d %9.3f%n", ftmOut, ftmNanos / 1e6, costOut, costNanos / 1e6);
+    }
+
+    private static void benchBudget(List<CubieCube> corpus, int first) {
+        SolveBudget budget = SolveBudget.ofMillis(Long.getLong("budget.ms", 1000))
+                .withMaxNodes(Long.getLong("budget.nodes", Long.MAX_VALUE));
+        System.out.println("case        status        len   partial(+bound)       nodes      ms");
+        for (int i = 0; i < corpus.size(); i++) {
+            SolveResult r = new TwoPhaseIDA().solve(new CubieCube(corpus.get(i)), budget);
+            System.out.printf("scramble%02d %-12s %4d %9d (+%d) %14d %8.3f%n", first + i, r.getStatus(),
+                    moveCount(r.getSolution()), moveCount(r.getPartial()), Math.max(0, r.getPartialLowerBound()),
+                    r.getNodes(), r.getElapsedNanos() / 1e6);
+        }
+    }
+
+    private static void benchScheduler(List<CubieCube> corpus, int first) throws Exception {
+        int rounds = Integer.getInteger("rounds", 2);
+        try (StrategyScheduler scheduler = new StrategyScheduler()) {
+            for (int round = 1; round <= rounds; round++) {
+                long total = 0, hedgesBefore = scheduler.getHedges(), winsBefore = scheduler.getHedgeWins();
+                System.out.println("round " + round);
+                for (int i = 0; i < corpus.size(); i++) {
+                    long t0 = System.nanoTime();
+                    SolveResult r = scheduler.solve(corpus.get(i));
+                    long t = System.nanoTime() - t0;
+                    total += t;
+                    System.out.printf("scramble%02d %10.3f ms %4d moves%n", first + i, t / 1e6, moveCount(r.getSolution()));
+                }
+                System.out.printf("total %.3f ms, hedges %d, won by hedge %d%n", total / 1e6,
+                        scheduler.getHedges() - hedgesBefore, scheduler.getHedgeWins() - winsBefore);
+            }
+        }
+    }
+
+    private static void benchResolve(List<CubieCube> corpus, int first) {
+        java.util.Random rnd = new java.util.Random(42);
+        int[] noise = {1, 2, 6};
+        System.out.println("case        full(ms)  wrong  repair            repair(ms)  remaining");
+        for (int i = 0; i < corpus.size(); i++) {
+            long t0 = System.nanoTime();
+            SolveContext base = SolveContext.solve(corpus.get(i));
+            long tFull = System.nanoTime() - t0;
+            for (int n : noise) {
+                SolveContext ctx = SolveContext.solve(corpus.get(i));
+                int half = ctx.getRemainingLength() / 2;
+                int[] mv = new int[ctx.getRemainingLength()], pw = new int[mv.length];
+                Moves.parseSequence(ctx.getRemaining(), mv, pw);
+                ctx.applied(mv, pw, half);
+                int[] wm = new int[n], wp = new int[n];
+                for (int k = 0; k < n; k++) {
+                    wm[k] = rnd.nextInt(6);
+                    wp[k] = 1 + rnd.nextInt(3);
+                }
+                t0 = System.nanoTime();
+                SolveContext.Repair r = ctx.applied(wm, wp, n);
+                long tRepair = System.nanoTime() - t0;
+                CubieCube check = ctx.getCurrent();
+                applySequence(check, ctx.getRemaining());
+                System.out.printf("scramble%02d %9.3f %6d  %-16s %10.3f %10d%s%n", first + i, tFull / 1e6, n, r,
+                        tRepair / 1e6, ctx.getRemainingLength(), check.isSolved() ? "" : "  (INVALID)");
+            }
+        }
+    }
+
+    private static void benchPacked() {
+        java.util.Random rnd = new java.util.Random(7);
+        int seqs = 20000, len = 20;
+        int[] mv = new int[seqs * len], pw = new int[seqs * len];
+        for (int i = 0; i < mv.length; i++) {
+            mv[i] = rnd.nextInt(6);
+            pw[i] = 1 + rnd.nextInt(3);
+        }
+        // the three representations must agree, and multiply/inverse must round-trip
+        for (int s = 0; s < 200; s++) {
+            CubieCube legacy = new CubieCube(), table = new CubieCube();
+            PackedCube packed = new PackedCube();
+            for (int i = s * len; i < (s + 1) * len; i++) {
+                for (int k = 0; k < pw[i]; k++) legacy.move(mv[i]);
+                table.applyMove(mv[i], pw[i]);
+                packed.applyMove(mv[i], pw[i]);
+            }
+            PackedCube roundTrip = PackedCube.from(legacy);
+            PackedCube product = new PackedCube(packed);
+            product.multiply(packed.inverse());
+            if (!roundTrip.equals(packed) || !PackedCube.from(table).equals(packed) || !product.isSolved()) {
+                throw new IllegalStateException("representations disagree on sequence " + s);
+            }
+        }
+        System.out.println("round             legacy(ms)  table(ms)  packed(ms)");
+        for (int round = 1; round <= 8; round++) {
+            long t0 = System.nanoTime();
+            int solved = 0;
+            for (int s = 0; s < seqs; s++) {
+                CubieCube c = new CubieCube();
+                for (int i = s * len; i < (s + 1) * len; i++) for (int k = 0; k < pw[i]; k++) c.move(mv[i]);
+                if (c.isSolved()) solved++;
+            }
+            long tLegacy = System.nanoTime() - t0;
+            t0 = System.nanoTime();
+            for (int s = 0; s < seqs; s++) {
+                CubieCube c = new CubieCube();
+                for (int i = s * len; i < (s + 1) * len; i++) c.applyMove(mv[i], pw[i]);
+                if (c.isSolved()) solved++;
+            }
+            long tTable = System.nanoTime() - t0;
+            t0 = System.nanoTime();
+            PackedCube p = new PackedCube(), solvedCube = new PackedCube();
+            for (int s = 0; s < seqs; s++) {
+                p.set(solvedCube);
+                for (int i = s * len; i < (s + 1) * len; i++) p.applyMove(mv[i], pw[i]);
+                if (p.isSolved()) solved++;
+            }
+            long tPacked = System.nanoTime() - t0;
+            System.out.printf("%d (%d x %d moves) %10.3f %10.3f %11.3f   (%d solved)%n", round, seqs, len,
+                    tLegacy / 1e6, tTable / 1e6, tPacked / 1e6, solved);
+        }
+    }
+
+    private static void benchCodec() {
+        // every coordinate value, then random cubes for the getters that see arbitrary states
+        CubieCube a = new CubieCube(), b = new CubieCube();
+        for (int c = 0; c < LightPruningTables.N_CP; c++) {
+            a.setCornerPermCoord(c);
+            LegacyCoordinates.setCornerPermCoord(b, c);
+            if (!java.util.Arrays.equals(a.cp, b.cp) || a.getCornerPermCoord() != c) throw new IllegalStateException("cp " + c);
+            a.setUDEdgePermCoord(c);
+            LegacyCoordinates.setUDEdgePermCoord(b, c);
+            if (!java.util.Arrays.equals(a.ep, b.ep) || a.getUDEdgePermCoord() != c) throw new IllegalStateException("ud " + c);
+        }
+        for (int c = 0; c < LightPruningTables.N_SLICE; c++) {
+            a.setUDSliceCoord(c);
+            LegacyCoordinates.setUDSliceCoord(b, c);
+            if (!java.util.Arrays.equals(a.ep, b.ep) || a.getUDSliceCoord() != c) throw new IllegalStateException("slice " + c);
+        }
+        for (int base = 0; base <= 8; base += 4) {
+            for (int c = 0; c < MoveTables.N_EDGE4; c++) {
+                a.setEdge4PosPermCoord(base, c);
+                if (a.getEdge4PosPermCoord(base) != c || LegacyCoordinates.getEdge4PosPermCoord(a, base) != c) {
+                    throw new IllegalStateException("edge4 " + base + " " + c);
+                }
+            }
+        }
+        java.util.Random rnd = new java.util.Random(11);
+        for (int n = 0; n < 100000; n++) {
+            a.applyMove(rnd.nextInt(6), 1 + rnd.nextInt(3));
+            if (a.getUDSliceCoord() != LegacyCoordinates.getUDSliceCoord(a)
+                    || a.getCornerPermCoord() != LegacyCoordinates.getCornerPermCoord(a)
+                    || a.getUDEdgePermCoord() != LegacyCoordinates.getUDEdgePermCoord(a)
+                    || a.getUEdgePermCoord() != LegacyCoordinates.getUEdgePermCoord(a)
+                    || a.getEdge4PosPermCoord(4) != LegacyCoordinates.getEdge4PosPermCoord(a, 4)) {
+                throw new IllegalStateException("random state " + n);
+            }
+        }
+        System.out.println("codec matches the old methods on every coordinate and 100000 random states");
+
+        com.sun.management.ThreadMXBean mx = (com.sun.management.ThreadMXBean) java.lang.management.ManagementFactory.getThreadMXBean();
+        int n = LightPruningTables.N_CP;
+        long sink = 0;
+        System.out.println("round  legacy(ns/op) legacy(B/op)  codec(ns/op) codec(B/op)");
+        for (int round = 1; round <= 6; round++) {
+            long b0 = mx.getCurrentThreadAllocatedBytes(), t0 = System.nanoTime();
+            for (int c = 0; c < n; c++) {
+                LegacyCoordinates.setCornerPermCoord(b, c);
+                sink += LegacyCoordinates.getCornerPermCoord(b);
+                LegacyCoordinates.setUDEdgePermCoord(b, c);
+                sink += LegacyCoordinates.getUDEdgePermCoord(b);
+                sink += LegacyCoordinates.getUDSliceCoord(b) + LegacyCoordinates.getEdge4PosPermCoord(b, 0);
+            }
+            long tLegacy = System.nanoTime() - t0, bLegacy = mx.getCurrentThreadAllocatedBytes() - b0;
+            b0 = mx.getCurrentThreadAllocatedBytes();
+            t0 = System.nanoTime();
+            for (int c = 0; c < n; c++) {
+                a.setCornerPermCoord(c);
+                sink += a.getCornerPermCoord();
+                a.setUDEdgePermCoord(c);
+                sink += a.getUDEdgePermCoord();
+                sink += a.getUDSliceCoord() + a.getEdge4PosPermCoord(0);
+            }
+            long tCodec = System.nanoTime() - t0, bCodec = mx.getCurrentThreadAllocatedBytes() - b0;
+            int ops = 6 * n;
+            System.out.printf("%5d %14.1f %12.1f %13.1f %11.1f%n", round, tLegacy / (double) ops, bLegacy / (double) ops,
+                    tCodec / (double) ops, bCodec / (double) ops);
+        }
+        if (sink == 42) System.out.println();
+    }
+
+    private static void benchSymCache(List<CubieCube> corpus, int first) {
+        SymmetryCache cache = new SymmetryCache(1024, true);
+        java.util.Random rnd = new java.util.Random(5);
+        long solveNanos = 0, hitNanos = 0;
+        int variants = 0;
+        for (int i = 0; i < corpus.size(); i++) {
+            CubieCube cc = corpus.get(i);
+            long t0 = System.nanoTime();
+            String sol = cache.solve(cc, c -> new TwoPhaseIDA().solve(c));
+            solveNanos += System.nanoTime() - t0;
+            if (sol.isEmpty()) continue;
+            for (int v = 0; v < 20; v++) {
+                CubieCube variant = new CubieCube();
+                SymmetryCache.conjugate(cc, rnd.nextInt(SymmetryCache.N_SYM), variant);
+                if (rnd.nextBoolean()) {
+                    CubieCube inv = new CubieCube();
+                    variant.inverse(inv);
+                    variant = inv;
+                }
+                t0 = System.nanoTime();
+                String hit = cache.get(variant);
+                hitNanos += System.nanoTime() - t0;
+                variants++;
+                if (hit == null) throw new IllegalStateException("scramble" + (first + i) + ": variant missed");
+                CubieCube check = new CubieCube(variant);
+                applySequence(check, hit);
+                if (!check.isSolved()) throw new IllegalStateException("scramble" + (first + i) + ": mapped solution is wrong");
+            }
+        }
+        System.out.printf("solved %d cases in %.3f ms; %d symmetric/inverse variants all hit and verified, %.2f us per lookup%n",
+                corpus.size(), solveNanos / 1e6, variants, hitNanos / 1e3 / Math.max(1, variants));
+        System.out.printf("hits %d, misses %d, evictions %d, size %d%n",
+                cache.getHits(), cache.getMisses(), cache.getEvictions(), cache.size());
+    }
+
+    private static void benchFacelets(List<CubieCube> corpus) {
+        // random states: render, decode both ways, and check against the source cube
+        java.util.Random rnd = new java.util.Random(13);
+        int n = 20000;
+        char[][] nets = new char[n][];
+        CubieCube walk = new CubieCube(), a = new CubieCube(), b = new CubieCube();
+        for (int i = 0; i < n; i++) {
+            for (int k = 0; k < 7; k++) walk.applyMove(rnd.nextInt(6), 1 + rnd.nextInt(3));
+            nets[i] = FaceCube.render(walk);
+            new FaceCube(nets[i]).toCubieCube(a);
+            LegacyFacelets.decode(nets[i], b);
+            if (!java.util.Arrays.equals(a.cp, walk.cp) || !java.util.Arrays.equals(a.co, walk.co)
+                    || !java.util.Arrays.equals(a.ep, walk.ep) || !java.util.Arrays.equals(a.eo, walk.eo)
+                    || !java.util.Arrays.equals(a.cp, b.cp) || !java.util.Arrays.equals(a.co, b.co)
+                    || !java.util.Arrays.equals(a.ep, b.ep) || !java.util.Arrays.equals(a.eo, b.eo)) {
+                throw new IllegalStateException("round trip " + i);
+            }
+        }
+        for (CubieCube cc : corpus) {
+            char[] f = Solver.parseNetForVerify(FaceCube.toNet(FaceCube.render(cc)));
+            CubieCube back = NetToCubie.fromFacelets(f);
+            if (!java.util.Arrays.equals(back.cp, cc.cp) || !java.util.Arrays.equals(back.co, cc.co)
+                    || !java.util.Arrays.equals(back.ep, cc.ep) || !java.util.Arrays.equals(back.eo, cc.eo)) {
+                throw new IllegalStateException("corpus net round trip");
+            }
+        }
+        System.out.println("tables match the old lookups on " + n + " random states; " + corpus.size() + " corpus nets round-trip");
+
+        com.sun.management.ThreadMXBean mx = (com.sun.management.ThreadMXBean) java.lang.management.ManagementFactory.getThreadMXBean();
+        char[] out = new char[54];
+        long sink = 0;
+        System.out.println("round  legacy(nets/s) legacy(B/net)  tables(nets/s) tables(B/net)  render(nets/s)");
+        for (int round = 1; round <= 6; round++) {
+            long b0 = mx.getCurrentThreadAllocatedBytes(), t0 = System.nanoTime();
+            for (char[] net : nets) {
+                LegacyFacelets.decode(net, b);
+                sink += b.cp[0];
+            }
+            long tLegacy = System.nanoTime() - t0, bLegacy = mx.getCurrentThreadAllocatedBytes() - b0;
+            b0 = mx.getCurrentThreadAllocatedBytes();
+            t0 = System.nanoTime();
+            for (char[] net : nets) {
+                new FaceCube(net).toCubieCube(a);
+                sink += a.cp[0];
+            }
+            long tTables = System.nanoTime() - t0, bTables = mx.getCurrentThreadAllocatedBytes() - b0;
+            t0 = System.nanoTime();
+            for (int i = 0; i < n; i++) {
+                FaceCube.render(a, FaceCube.DEFAULT_COLORS, out);
+                sink += out[i % 54];
+            }
+            long tRender = System.nanoTime() - t0;
+            System.out.printf("%5d %15.0f %13.0f %15.0f %13.0f %15.0f%n", round, n * 1e9 / tLegacy, bLegacy / (double) n,
+                    n * 1e9 / tTables, bTables / (double) n, n * 1e9 / tRender);
+        }
+        if (sink == 42) System.out.println();
+    }
+
+    private static void benchStream(List<CubieCube> corpus) throws Exception {
+        int cubes = Integer.getInteger("cubes", 1_000_000);
+        java.nio.file.Path lines = Files.createTempFile("cubes", ".txt");
+        java.nio.file.Path nets = Files.createTempFile("nets", ".txt");
+        try {
+            // half the file as single lines, the other half as nine-line nets, checked cube by cube
+            try (java.io.BufferedWriter out = Files.newBufferedWriter(lines)) {
+                for (int i = 0; i < cubes; i++) {
+                    out.write(FaceCube.toLine(FaceCube.render(corpus.get(i % corpus.size()))));
+                    out.newLine();
+                }
+            }
+            try (java.io.BufferedWriter out = Files.newBufferedWriter(nets)) {
+                for (int i = 0; i < corpus.size(); i++) {
+                    char[] f = FaceCube.render(corpus.get(i));
+                    if (i % 2 == 0) {
+                        for (String row : FaceCube.toNet(f)) { out.write(row); out.newLine(); }
+                        out.newLine();
+                    } else {
+                        out.write(FaceCube.toLine(f));
+                        out.newLine();
+                    }
+                }
+            }
+            char[] f = new char[54];
+            try (CubeStreamReader in = new CubeStreamReader(nets)) {
+                for (CubieCube cc : corpus) {
+                    if (!in.next(f) || !java.util.Arrays.equals(f, FaceCube.render(cc))) throw new IllegalStateException("mixed file, cube " + in.getCount());
+                }
+                if (in.next(f)) throw new IllegalStateException("mixed file: extra cube");
+            }
+            System.out.println("mixed nets/lines file reads back all " + corpus.size() + " cubes");
+            checkMalformedNet(nets, corpus);
+
+            com.sun.management.ThreadMXBean mx = (com.sun.management.ThreadMXBean) java.lang.management.ManagementFactory.getThreadMXBean();
+            List<String> net = FaceCube.toNet(FaceCube.render(corpus.get(0)));
+            long sink = 0;
+            System.out.println("round  stream(cubes/s) stream(B/cube)  parseNet(nets/s) parseNet(B/net)");
+            for (int round = 1; round <= 5; round++) {
+                long b0 = mx.getCurrentThreadAllocatedBytes(), t0 = System.nanoTime();
+                try (CubeStreamReader in = new CubeStreamReader(lines)) {
+                    while (in.next(f)) sink += f[0];
+                }
+                long tStream = System.nanoTime() - t0, bStream = mx.getCurrentThreadAllocatedBytes() - b0;
+                // the per-file path, without the file opens: parse an in-memory 9-line net
+                int n = Math.min(cubes, 200_000);
+                b0 = mx.getCurrentThreadAllocatedBytes();
+                t0 = System.nanoTime();
+                for (int i = 0; i < n; i++) sink += Solver.parseNetForVerify(net)[0];
+                long tParse = System.nanoTime() - t0, bParse = mx.getCurrentThreadAllocatedBytes() - b0;
+                System.out.printf("%5d %16.0f %14.1f %17.0f %15.1f%n", round, cubes * 1e9 / tStream, bStream / (double) cubes,
+                        n * 1e9 / tParse, bParse / (double) n);
+            }
+            if (sink == 42) System.out.println();
+        } finally {
+            Files.deleteIfExists(lines);
+            Files.deleteIfExists(nets);
+        }
+    }
+
+    // Three nets back to back, no blank lines, one row of the middle net a sticker short:
+    // exactly one exception, and the cubes on either side still read back
+    private static void checkMalformedNet(java.nio.file.Path file, List<CubieCube> corpus) throws Exception {
+        for (int badRow = 0; badRow < 9; badRow++) {
+            try (java.io.BufferedWriter out = Files.newBufferedWriter(file)) {
+                for (int i = 0; i < 3; i++) {
+                    List<String> net = FaceCube.toNet(FaceCube.render(corpus.get(i % corpus.size())));
+                    for (int r = 0; r < net.size(); r++) {
+                        String row = net.get(r);
+                        out.write(i == 1 && r == badRow ? row.substring(0, row.length() - 1) : row);
+                        out.newLine();
+                    }
+                }
+            }
+            char[] f = new char[54];
+            int errors = 0;
+            try (CubeStreamReader in = new CubeStreamReader(file)) {
+                if (!in.next(f) || !java.util.Arrays.equals(f, FaceCube.render(corpus.get(0)))) throw new IllegalStateException("bad row " + badRow + ": first cube");
+                try {
+                    in.next(f);
+                } catch (IllegalArgumentException e) {
+                    errors++;
+                }
+                if (errors != 1 || !in.next(f) || !java.util.Arrays.equals(f, FaceCube.render(corpus.get(2 % corpus.size())))) {
+                    throw new IllegalStateException("bad row " + badRow + ": third cube lost");
+                }
+                if (in.next(f)) throw new IllegalStateException("bad row " + badRow + ": extra cube");
+            }
+        }
+        System.out.println("a short row anywhere in a net costs exactly that cube");
+    }
+
+    private static void benchSolutionFile() throws Exception {
+        int cubes = Integer.getInteger("cubes", 1_000_000);
+        java.util.Random rnd = new java.util.Random(17);
+        String[] sols = new String[1024];
+        for (int i = 0; i < sols.length; i++) {
+            StringBuilder sb = new StringBuilder();
+            int last = -1;
+            for (int k = 18 + rnd.nextInt(8); k > 0; k--) {
+                int m;
+                do { m = rnd.nextInt(6); } while (m == last);
+                last = m;
+                if (sb.length() > 0) sb.append(' ');
+                sb.append(Moves.moveToString(m, 1 + rnd.nextInt(3)));
+            }
+            sols[i] = sb.toString();
+        }
+        java.nio.file.Path bin = Files.createTempFile("solutions", ".bin");
+        java.nio.file.Path txt = Files.createTempFile("solutions", ".txt");
+        try {
+            SolveResult.Status[] statuses = SolveResult.Status.values();
+            for (int round = 1; round <= 3; round++) {
+                long t0 = System.nanoTime();
+                try (SolutionWriter out = new SolutionWriter(bin)) {
+                    for (int i = 0; i < cubes; i++) out.write(i, statuses[i % statuses.length], i * 1000L, sols[i & 1023]);
+                }
+                long tWrite = System.nanoTime() - t0;
+                t0 = System.nanoTime();
+                try (java.io.BufferedWriter out = Files.newBufferedWriter(txt)) {
+                    for (int i = 0; i < cubes; i++) {
+                        out.write(CompactMoveEncoder.programToCompact(sols[i & 1023]));
+                        out.newLine();
+                    }
+                }
+                long tText = System.nanoTime() - t0;
+                SolutionReader.Record r = new SolutionReader.Record();
+                long tRead;
+                t0 = System.nanoTime();
+                try (SolutionReader in = new SolutionReader(bin)) {
+                    int i = 0;
+                    while (in.next(r)) {
+                        if (r.index != i || r.status != statuses[i % statuses.length] || r.elapsedMicros != i
+                                || (i < 1024 && !r.toSpaced().equals(sols[i]))) {
+                            throw new IllegalStateException("record " + i);
+                        }
+                        i++;
+                    }
+                    tRead = System.nanoTime() - t0;
+                    if (i != cubes || in.getDeclaredCount() != cubes) throw new IllegalStateException("count " + i);
+                }
+                long binBytes = Files.size(bin), txtBytes = Files.size(txt);
+                System.out.printf("round %d: binary %.1f MB (%.1f B/record), write %.0f rec/s, read %.0f rec/s; "
+                                + "compact text %.1f MB, write %.0f rec/s%n", round, binBytes / 1e6, binBytes / (double) cubes,
+                        cubes * 1e9 / tWrite, cubes * 1e9 / tRead, txtBytes / 1e6, cubes * 1e9 / tText);
+            }
+        } finally {
+            Files.deleteIfExists(bin);
+            Files.deleteIfExists(txt);
+        }
+    }
+
+    private static void benchHeuristics(List<CubieCube> corpus, int first) {
+        if (!HeuristicProfiler.ENABLED) {
+            System.out.println("run with -Dheuristic.profile=true");
+            return;
+        }
+        HeuristicProfiler total = new HeuristicProfiler();
+        long nanos = 0;
+        System.out.println("case           p1nodes      p2nodes   len       ms");
+        for (int i = 0; i < corpus.size(); i++) {
+            TwoPhaseIDA solver = new TwoPhaseIDA();
+            long t0 = System.nanoTime();
+            String sol = solver.solve(new CubieCube(corpus.get(i)));
+            long t = System.nanoTime() - t0;
+            nanos += t;
+            total.add(solver.getHeuristicProfiler());
+            System.out.printf("scramble%02d %12d %12d %5d %8.1f%n", first + i, solver.getPhase1Nodes(), solver.getPhase2Nodes(),
+                    moveCount(sol), t / 1e6);
+        }
+        System.out.printf("%d cases in %.1f s (profiled)%n", corpus.size(), nanos / 1e9);
+        System.out.print(total.report());
+    }
+
+    // The CubieCube coordinate methods as they were before CoordCodec, kept verbatim (as
+    // static methods) as the baseline and reference for "codec"
+    private static final class LegacyCoordinates {
+
+        private static int nCr(int n, int r) {
+            if (r > n) return 0;
+            int res = 1;
+            for (int i = 1; i <= r; i++) res = res * (n - i + 1) / i;
+            return res;
+        }
+
+        private static int getUDSliceCoord(CubieCube c) {
+            int coord = 0;
+            int r = 4;
+            for (int i = 11; i >= 0 && r > 0; i--) {
+                int e = c.ep[i];
+                if (e == CubieCube.FR || e == CubieCube.FL || e == CubieCube.BL || e == CubieCube.BR) {
+                    coord += nCr(i, r);
+                    r--;
+                }
+            }
+            return coord;
+        }
+
+        private static void setUDSliceCoord(CubieCube c, int coord) {
+            byte[] ep = c.ep;
+            java.util.Arrays.fill(ep, (byte)-1);
+            int r = 4;
+            int placed = 0;
+            for (int i = 11; i >= 0 && r > 0; i--) {
+                int comb = nCr(i, r);
+                if (coord >= comb) {
+                    ep[i] = (byte)(CubieCube.FR + placed);
+                    placed++;
+                    coord -= comb;
+                    r--;
+                }
+            }
+            int e = 0;
+            for (int i = 0; i < 12; i++) {
+                if (ep[i] == -1) {
+                    while (e == CubieCube.FR || e == CubieCube.FL || e == CubieCube.BL || e == CubieCube.BR) e++;
+                    ep[i] = (byte)e++;
+                }
+            }
+        }
+
+        private static int getEdge4PosPermCoord(CubieCube c, int base) {
+            int comb = 0;
+            int r = 4;
+            int[] order = new int[4];
+            for (int i = 11; i >= 0 && r > 0; i--) {
+                int e = c.ep[i] - base;
+                if (e >= 0 && e < 4) {
+                    comb += nCr(i, r);
+                    r--;
+                    order[r] = e;
+                }
+            }
+            return comb * 24 + permCoord4(order);
+        }
+
+        private static int getCornerPermCoord(CubieCube c) {
+            int coord = 0; int[] used = new int[8];
+            for (int i = 0; i < 8; i++) {
+                int v = c.cp[i]; int smaller = 0;
+                for (int j = 0; j < v; j++) if (used[j] == 0) smaller++;
+                coord = coord * (8 - i) + smaller;
+                used[v] = 1;
+            }
+            return coord;
+        }
+
+        private static void setCornerPermCoord(CubieCube c, int coord) {
+            int[] perm = new int[8]; boolean[] used = new boolean[8];
+            int[] fact = new int[9]; fact[0]=1; for (int i=1;i<=8;i++) fact[i]=fact[i-1]*i;
+            int rem = coord;
+            for (int i = 0; i < 8; i++) {
+                int div = fact[7 - i];
+                int index = rem / div; rem = rem % div;
+                int j = 0, cnt = 0;
+                while (true) {
+                    if (!used[j]) {
+                        if (cnt == index) break;
+                        cnt++;
+                    }
+                    j++;
+                }
+                perm[i] = j; used[j] = true;
+            }
+            for (int i = 0; i < 8; i++) c.cp[i] = (byte)perm[i];
+        }
+
+        private static int permCoord4(int[] perm) {
+            int coord = 0;
+            boolean[] used = new boolean[4];
+            for (int i = 0; i < 4; i++) {
+                int v = perm[i];
+                int smaller = 0;
+                for (int j = 0; j < v; j++) if (!used[j]) smaller++;
+                coord = coord * (4 - i) + smaller;
+                used[v] = true;
+            }
+            return coord;
+        }
+
+
+        private static int getUEdgePermCoord(CubieCube c) {
+            int[] perm = new int[4];
+            for (int i = 0; i < 4; i++) {
+                int e = c.ep[i];
+                if (e < 0 || e > 3) return 0;
+                perm[i] = e;
+            }
+            return permCoord4(perm);
+        }
+
+        private static int getUDEdgePermCoord(CubieCube c) {
+            int[] perm = new int[8];
+            int idx = 0;
+            for (int i = 0; i < 12; i++) {
+                int e = c.ep[i];
+                if (e < 8) perm[idx++] = e;
+            }
+            if (idx != 8) return 0;
+
+            int coord = 0; int[] used = new int[8];
+            for (int i = 0; i < 8; i++) {
+                int v = perm[i];
+                int smaller = 0;
+                for (int j = 0; j < v; j++) if (used[j] == 0) smaller++;
+                coord = coord * (8 - i) + smaller;
+                used[v] = 1;
+            }
+            return coord;
+        }
+
+        private static void setUDEdgePermCoord(CubieCube c, int coord) {
+            int[] perm = new int[8]; boolean[] used = new boolean[8];
+            int[] fact = new int[9]; fact[0]=1; for (int i=1;i<=8;i++) fact[i]=fact[i-1]*i;
+            int rem = coord;
+            for (int i = 0; i < 8; i++) {
+                int div = fact[7 - i];
+                int index = rem / div; rem = rem % div;
+                int j = 0, cnt = 0;
+                while (true) {
+                    if (!used[j]) {
+                        if (cnt == index) break;
+                        cnt++;
+                    }
+                    j++;
+                }
+                perm[i] = j; used[j] = true;
+            }
+            for (int i = 0; i < 8; i++) c.ep[i] = (byte)perm[i];
+            c.ep[8]=CubieCube.FR; c.ep[9]=CubieCube.FL; c.ep[10]=CubieCube.BL; c.ep[11]=CubieCube.BR;
+        }
+    }
+
+    // The FaceCube cubie lookups as they were before the lookup tables (color arrays rebuilt
+    // per call, match3 scans), kept as the baseline and reference for "facelets"
+    private static final class LegacyFacelets {
+
+        private static final int[][] CORNER_FACELET = {
+                { 8, 27, 20 }, { 6, 18, 11 }, { 0,  9, 38 }, { 2, 36, 29 },
+                { 47, 26, 33 }, { 45, 17, 24 }, { 51, 44, 15 }, { 53, 35, 42 }
+        };
+        private static final int[][] EDGE_FACELET = {
+                {5, 28}, {7, 19}, {3, 10}, {1, 37},
+                {50, 34}, {46, 25}, {48, 16}, {52, 43},
+                {23, 30}, {21, 14}, {41, 12}, {39, 32}
+        };
+
+        private final char[] f;
+        private final char Uc, Rc, Fc, Dc, Lc, Bc;
+
+        private LegacyFacelets(char[] facelets) {
+            f = facelets.clone();
+            Uc = f[4]; Rc = f[31]; Fc = f[22]; Dc = f[49]; Lc = f[13]; Bc = f[40];
+        }
+
+        private static void decode(char[] facelets, CubieCube out) {
+            LegacyFacelets fc = new LegacyFacelets(facelets);
+            for (int i = 0; i < 8; i++) {
+                out.cp[i] = fc.getCornerPerm(i);
+                out.co[i] = fc.getCornerOri(i);
+            }
+            for (int i = 0; i < 12; i++) {
+                out.ep[i] = fc.getEdgePerm(i);
+                out.eo[i] = fc.getEdgeOri(i);
+            }
+        }
+
+        private char[][] cornerColors() {
+            return new char[][] {
+                    {Uc, Rc, Fc}, {Uc, Fc, Lc}, {Uc, Lc, Bc}, {Uc, Bc, Rc},
+                    {Dc, Fc, Rc}, {Dc, Lc, Fc}, {Dc, Bc, Lc}, {Dc, Rc, Bc}
+            };
+        }
+
+        private char[][] edgeColors() {
+            return new char[][] {
+                    {Uc, Rc}, {Uc, Fc}, {Uc, Lc}, {Uc, Bc},
+                    {Dc, Rc}, {Dc, Fc}, {Dc, Lc}, {Dc, Bc},
+                    {Fc, Rc}, {Fc, Lc}, {Bc, Lc}, {Bc, Rc}
+            };
+        }
+
+        private byte getCornerPerm(int c) {
+            return findCorner(f[CORNER_FACELET[c][0]], f[CORNER_FACELET[c][1]], f[CORNER_FACELET[c][2]]);
+        }
+
+        private byte getCornerOri(int c) {
+            char a = f[CORNER_FACELET[c][0]];
+            char b = f[CORNER_FACELET[c][1]];
+            char d = f[CORNER_FACELET[c][2]];
+            if (findCorner(a, b, d) == -1) return 0;
+            char[] cols = {a, b, d};
+            for (byte ori = 0; ori < 3; ori++)
+                if (cols[ori] == Uc || cols[ori] == Dc)
+                    return ori;
+            return 0;
+        }
+
+        private byte findCorner(char a, char b, char c) {
+            char[][] ccArr = cornerColors();
+            for (byte i = 0; i < 8; i++) {
+                char[] CC = ccArr[i];
+                if (match3(a, b, c, CC[0], CC[1], CC[2])) return i;
+            }
+            return -1;
+        }
+
+        private boolean match3(char a, char b, char c, char x, char y, char z) {
+            return (a==x && b==y && c==z)
+                    || (a==y && b==z && c==x)
+                    || (a==z && b==x && c==y);
+        }
+
+        private byte getEdgePerm(int e) {
+            return findEdge(f[EDGE_FACELET[e][0]], f[EDGE_FACELET[e][1]]);
+        }
+
+        private byte getEdgeOri(int e) {
+            char a = f[EDGE_FACELET[e][0]];
+            char b = f[EDGE_FACELET[e][1]];
+            byte edge = findEdge(a, b);
+            if (edge == -1) return 0;
+            if (edge >= 8 && edge <= 11) {
+                return (byte) ((a == Fc || a == Bc) ? 0 : 1);
+            }
+            return (byte) ((a == Uc || a == Dc) ? 0 : 1);
+        }
+
+        private byte findEdge(char a, char b) {
+            char[][] edgeColor = edgeColors();
+            for (byte i = 0; i < 12; i++) {
+                char x = edgeColor[i][0];
+                char y = edgeColor[i][1];
+                if ((a==x && b==y) || (a==y && b==x)) return i;
+            }
+            return -1;
+        }
+    }
+}
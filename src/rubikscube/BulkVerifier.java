@@ -0,0 +1,212 @@
+package rubikscube;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Verifies (scramble, solution) pairs from two large files in parallel.
+ * Scrambles are read with CubeStreamReader. Solutions are either text, one per line in
+ * spaced or CompactMoveEncoder notation (empty line = no solution), or a SolutionWriter
+ * ".bin" file whose record i belongs to scramble i. The reading thread fills fixed-size
+ * batches that worker threads decode and replay on a PackedCube; batches are recycled
+ * through a small pool, so memory stays bounded however large the files are. A scramble
+ * the reader rejects still consumes its solution and counts as invalid.
+ * Usage: java rubikscube.BulkVerifier <scrambles> <solutions> [threads]
+ */
+public final class BulkVerifier {
+
+    public static final int BATCH_SIZE = 4096;
+    public static final int MAX_REPORTED_FAILURES = 20;
+
+    public record Report(long pairs, long verified, long failed, long noSolution, long invalid,
+                         List<Long> firstFailures, long elapsedNanos) {
+        public double pairsPerSecond() {
+            return pairs * 1e9 / Math.max(1, elapsedNanos);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d pairs: %d verified, %d failed, %d without solution, %d invalid scrambles "
+                            + "in %.3f seconds (%.0f pairs/s)%s", pairs, verified, failed, noSolution, invalid,
+                    elapsedNanos / 1e9, pairsPerSecond(), firstFailures.isEmpty() ? "" : "; first failures at " + firstFailures);
+        }
+    }
+
+    private static final class Batch {
+        final char[][] facelets = new char[BATCH_SIZE][54];
+        // text solutions, or null when moves/lengths were filled from a binary file
+        final String[] text = new String[BATCH_SIZE];
+        final byte[][] moves = new byte[BATCH_SIZE][SolutionWriter.MAX_MOVES];
+        final int[] lengths = new int[BATCH_SIZE];
+        // scrambles CubeStreamReader rejected; their facelets are left over from an earlier pair
+        final boolean[] malformed = new boolean[BATCH_SIZE];
+        long firstIndex;
+        int size;
+    }
+
+    private final AtomicLong verified = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong noSolution = new AtomicLong();
+    private final AtomicLong invalid = new AtomicLong();
+    private final List<Long> failures = new ArrayList<>();
+    // first exception a worker hit outside the per-pair checks; run() rethrows it
+    private final AtomicReference<RuntimeException> workerError = new AtomicReference<>();
+
+    private BulkVerifier() { }
+
+    public static Report verify(Path scrambles, Path solutions, int threads) throws IOException, InterruptedException {
+        return new BulkVerifier().run(scrambles, solutions, threads);
+    }
+
+    private Report run(Path scrambles, Path solutions, int threads) throws IOException, InterruptedException {
+        long t0 = System.nanoTime();
+        boolean binary = solutions.toString().endsWith(".bin");
+        BlockingQueue<Batch> free = new ArrayBlockingQueue<>(2 * threads);
+        for (int i = 0; i < 2 * threads; i++) free.add(new Batch());
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "bulk-verifier");
+            t.setDaemon(true);
+            return t;
+        });
+        long pairs = 0;
+        try (CubeStreamReader in = new CubeStreamReader(scrambles);
+             BufferedReader text = binary ? null : Files.newBufferedReader(solutions);
+             SolutionReader bin = binary ? new SolutionReader(solutions) : null) {
+            SolutionReader.Record rec = binary ? new SolutionReader.Record() : null;
+            boolean more = true;
+            while (more && workerError.get() == null) {
+                Batch b = free.take();
+                b.firstIndex = pairs;
+                b.size = 0;
+                while (b.size < BATCH_SIZE) {
+                    int k = b.size;
+                    // a malformed scramble is still a pair: it counts as invalid, and its
+                    // solution is read below so both files stay in step
+                    try {
+                        b.malformed[k] = false;
+                        if (!(more = in.next(b.facelets[k]))) break;
+                    } catch (IllegalArgumentException e) {
+                        b.malformed[k] = true;
+                    }
+                    if (binary) {
+                        if (!bin.next(rec)) throw new IOException("Solution file ends at record " + pairs);
+                        b.text[k] = null;
+                        b.lengths[k] = rec.status == SolveResult.Status.SOLVED ? rec.length : -1;
+                        System.arraycopy(rec.moves, 0, b.moves[k], 0, rec.length);
+                    } else {
+                        String line = text.readLine();
+                        if (line == null) throw new IOException("Solution file ends at line " + (pairs + 1));
+                        b.text[k] = line;
+                    }
+                    b.size++;
+                    pairs++;
+                }
+                if (b.size == 0) {
+                    free.add(b);
+                    break;
+                }
+                pool.execute(() -> {
+                    try {
+                        verifyBatch(b);
+                    } catch (RuntimeException e) {
+                        workerError.compareAndSet(null, e);
+                    } finally {
+                        free.add(b);
+                    }
+                });
+            }
+        } finally {
+            pool.shutdown();
+            pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        }
+        // a lost batch would leave its pairs out of every count
+        if (workerError.get() != null) throw new IllegalStateException("Verification worker failed", workerError.get());
+        List<Long> first;
+        synchronized (failures) {
+            failures.sort(null);
+            first = List.copyOf(failures.subList(0, Math.min(failures.size(), MAX_REPORTED_FAILURES)));
+        }
+        return new Report(pairs, verified.get(), failed.get(), noSolution.get(), invalid.get(), first,
+                System.nanoTime() - t0);
+    }
+
+    private void verifyBatch(Batch b) {
+        int[] mv = new int[SolutionWriter.MAX_MOVES], pw = new int[SolutionWriter.MAX_MOVES];
+        CubieCube cc = new CubieCube();
+        PackedCube pc = new PackedCube();
+        long ok = 0, bad = 0, none = 0, inv = 0;
+        for (int k = 0; k < b.size; k++) {
+            if (b.malformed[k]) {
+                inv++;
+                continue;
+            }
+            int n;
+            if (b.text[k] != null) {
+                try {
+                    n = b.text[k].isBlank() ? -1 : Moves.parseSequence(b.text[k], mv, pw);
+                } catch (IllegalArgumentException e) {
+                    n = -2;
+                }
+            } else {
+                n = b.lengths[k];
+                for (int i = 0; i < n; i++) {
+                    mv[i] = b.moves[k][i] / 3;
+                    pw[i] = b.moves[k][i] % 3 + 1;
+                }
+            }
+            if (n == -1) {
+                none++;
+                continue;
+            }
+            new FaceCube(b.facelets[k]).toCubieCube(cc);
+            if (NetToCubie.invalidReason(cc) != null) {
+                inv++;
+                continue;
+            }
+            boolean solved = false;
+            if (n >= 0) {
+                pc.set(cc);
+                for (int i = 0; i < n; i++) pc.applyMove(mv[i], pw[i]);
+                solved = pc.isSolved();
+            }
+            if (solved) {
+                ok++;
+            } else {
+                bad++;
+                synchronized (failures) {
+                    failures.add(b.firstIndex + k);
+                    // keep only the smallest indices
+                    if (failures.size() > 4 * MAX_REPORTED_FAILURES) {
+                        failures.sort(null);
+                        failures.subList(MAX_REPORTED_FAILURES, failures.size()).clear();
+                    }
+                }
+            }
+        }
+        verified.addAndGet(ok);
+        failed.addAndGet(bad);
+        noSolution.addAndGet(none);
+        invalid.addAndGet(inv);
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.out.println("usage: java rubikscube.BulkVerifier <scrambles> <solutions> [threads]");
+            return;
+        }
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        System.out.println(verify(Paths.get(args[0]), Paths.get(args[1]), threads));
+    }
+}
@@ -0,0 +1,173 @@
+package rubikscube;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of finished batch items, one "<id>\t<micros>\t<solution>" line each,
+ * so a killed run can resume where it stopped. Lines are buffered and written plus forced
+ * to disk once per -Dcheckpoint.group items or -Dcheckpoint.delayMs, whichever comes first;
+ * a crash loses at most that group, whose items are simply solved again. On open, a torn
+ * last line is cut off. Every id is logged at most once, which is what lets the final
+ * output be rebuilt from the log with each item exactly once.
+ * The first line is "#input\t<fingerprint>" (see fingerprint()): a log is only resumed
+ * against the same input files, otherwise open() throws and the stale log must be removed.
+ */
+public final class CheckpointLog implements Closeable {
+
+    private static final int GROUP = Integer.getInteger("checkpoint.group", 64);
+    private static final long DELAY_MS = Long.getLong("checkpoint.delayMs", 2000L);
+
+    public interface Entry {
+        void accept(long id, long micros, String solution) throws IOException;
+    }
+
+    private final Path path;
+    private final FileChannel channel;
+    private final BitSet done = new BitSet();
+    private final StringBuilder pending = new StringBuilder();
+    private int pendingCount;
+    private long lastFlushNanos = System.nanoTime();
+    private long lastId = -1;
+    private boolean ordered = true;
+    private int size;
+
+    private static final String HEADER = "#input\t";
+
+    private CheckpointLog(Path path, String fingerprint) throws IOException {
+        this.path = path;
+        long valid = 0;
+        if (Files.exists(path)) {
+            byte[] all = Files.readAllBytes(path);
+            int lineStart = 0;
+            for (int i = 0; i < all.length; i++) {
+                if (all[i] != '\n') continue;
+                String line = new String(all, lineStart, i - lineStart, StandardCharsets.US_ASCII);
+                lineStart = i + 1;
+                if (valid == 0) {
+                    if (!line.equals(HEADER + fingerprint)) {
+                        throw new IOException("Checkpoint " + path + " was written for another input ("
+                                + (line.startsWith(HEADER) ? line.substring(HEADER.length()) : "no input header")
+                                + ", now " + fingerprint + "); delete it to start over");
+                    }
+                    valid = i + 1;
+                    continue;
+                }
+                int tab = line.indexOf('\t');
+                if (tab < 0) break;
+                note(Long.parseLong(line.substring(0, tab)));
+                valid = i + 1;
+            }
+        }
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        channel.truncate(valid);
+        channel.position(valid);
+        if (valid == 0) {
+            // new log, or one torn before its header was complete
+            ByteBuffer b = ByteBuffer.wrap((HEADER + fingerprint + "\n").getBytes(StandardCharsets.US_ASCII));
+            while (b.hasRemaining()) channel.write(b);
+            channel.force(false);
+        }
+    }
+
+    // fingerprint: what the log belongs to, usually fingerprint(inputs)
+    public static CheckpointLog open(Path path, String fingerprint) throws IOException {
+        return new CheckpointLog(path, fingerprint);
+    }
+
+    // "<first input> [+N more] <total bytes> <crc32>" in printable ASCII, the CRC covering every
+    // input's absolute path, size and modification time. A missing input counts with size -1.
+    public static String fingerprint(List<Path> inputs) throws IOException {
+        CRC32 crc = new CRC32();
+        long bytes = 0;
+        for (Path p : inputs) {
+            boolean exists = Files.exists(p);
+            long size = exists ? Files.size(p) : -1;
+            long mtime = exists ? Files.getLastModifiedTime(p).toMillis() : -1;
+            bytes += Math.max(size, 0);
+            crc.update((p.toAbsolutePath().normalize() + "\t" + size + "\t" + mtime + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+        String first = inputs.isEmpty() ? "-" : inputs.get(0).toString().replaceAll("[^\\x20-\\x7e]", "?");
+        return first + (inputs.size() > 1 ? " +" + (inputs.size() - 1) + " more" : "") + " " + bytes
+                + " " + Long.toHexString(crc.getValue());
+    }
+
+    private void note(long id) {
+        if (id <= lastId) ordered = false;
+        lastId = Math.max(lastId, id);
+        done.set(Math.toIntExact(id));
+        size++;
+    }
+
+    public boolean isDone(long id) {
+        return done.get(Math.toIntExact(id));
+    }
+
+    // Items logged so far, including those from earlier runs
+    public int size() { return size; }
+
+    public void record(long id, long micros, String solution) throws IOException {
+        if (isDone(id)) throw new IllegalStateException("Item " + id + " is already in the checkpoint log");
+        note(id);
+        pending.append(id).append('\t').append(micros).append('\t').append(solution == null ? "" : solution).append('\n');
+        if (++pendingCount >= GROUP || System.nanoTime() - lastFlushNanos > DELAY_MS * 1_000_000L) flush();
+    }
+
+    public void flush() throws IOException {
+        lastFlushNanos = System.nanoTime();
+        if (pendingCount == 0) return;
+        ByteBuffer b = ByteBuffer.wrap(pending.toString().getBytes(StandardCharsets.US_ASCII));
+        while (b.hasRemaining()) channel.write(b);
+        channel.force(false);
+        pending.setLength(0);
+        pendingCount = 0;
+    }
+
+    // All logged items in id order
+    public void replay(Entry out) throws IOException {
+        flush();
+        try (BufferedReader r = Files.newBufferedReader(path, StandardCharsets.US_ASCII)) {
+            Map<Long, String[]> sorted = ordered ? null : new TreeMap<>();
+            String line;
+            while ((line = r.readLine()) != null) {
+                if (line.startsWith("#")) continue;
+                String[] f = line.split("\t", 3);
+                if (sorted == null) {
+                    out.accept(Long.parseLong(f[0]), Long.parseLong(f[1]), f[2]);
+                } else {
+                    sorted.put(Long.parseLong(f[0]), f);
+                }
+            }
+            if (sorted != null) {
+                for (String[] f : sorted.values()) out.accept(Long.parseLong(f[0]), Long.parseLong(f[1]), f[2]);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    // After the final output is safely written
+    public void delete() throws IOException {
+        close();
+        Files.deleteIfExists(path);
+    }
+}
@@ -0,0 +1,158 @@
+package rubikscube;
+
+/**
+ * Rank/unrank for the CubieCube permutation and combination coordinates, without
+ * allocation. Factorials, binomials and the 4-element permutations are tables; the
+ * Lehmer digit of a value is the popcount of the still-unused smaller values in a bit
+ * mask, and unranking picks the k-th unused value from a select table.
+ */
+final class CoordCodec {
+
+    private CoordCodec() { }
+
+    private static final int[] FACT = new int[13];
+    // BINOM[n][r] for n < 13, r <= 4
+    private static final int[][] BINOM = new int[13][5];
+    // SELECT[mask << 3 | k]: position of the k-th set bit of an 8-bit mask
+    private static final byte[] SELECT = new byte[256 * 8];
+    // rank of (a, b, c, d) packed as a << 6 | b << 4 | c << 2 | d; entries for non-permutations are unused
+    private static final byte[] PERM4_RANK = new byte[256];
+    // PERM4[rank] packed the same way
+    private static final int[] PERM4 = new int[24];
+
+    static {
+        FACT[0] = 1;
+        for (int i = 1; i < FACT.length; i++) FACT[i] = FACT[i - 1] * i;
+        for (int n = 0; n < BINOM.length; n++) {
+            BINOM[n][0] = 1;
+            for (int r = 1; r <= 4; r++) BINOM[n][r] = n == 0 ? 0 : BINOM[n - 1][r - 1] + BINOM[n - 1][r];
+        }
+        for (int mask = 0; mask < 256; mask++) {
+            int k = 0;
+            for (int bit = 0; bit < 8; bit++) {
+                if ((mask & (1 << bit)) != 0) SELECT[mask << 3 | k++] = (byte) bit;
+            }
+        }
+        for (int rank = 0; rank < 24; rank++) {
+            int unused = 0xF, rem = rank, packed = 0;
+            for (int i = 0; i < 4; i++) {
+                int div = FACT[3 - i];
+                int v = SELECT[unused << 3 | rem / div];
+                rem %= div;
+                unused &= ~(1 << v);
+                packed = packed << 2 | v;
+            }
+            PERM4[rank] = packed;
+            PERM4_RANK[packed] = (byte) rank;
+        }
+    }
+
+    static int binom(int n, int r) {
+        return BINOM[n][r];
+    }
+
+    // Lehmer rank of p[off..off+8) holding 0..7 (CubieCube corner / UD-edge order)
+    static int rankPerm8(byte[] p, int off) {
+        int coord = 0, unused = 0xFF;
+        for (int i = 0; i < 8; i++) {
+            int v = p[off + i];
+            coord = coord * (8 - i) + Integer.bitCount(unused & ((1 << v) - 1));
+            unused &= ~(1 << v);
+        }
+        return coord;
+    }
+
+    static void unrankPerm8(int coord, byte[] out, int off) {
+        int unused = 0xFF;
+        for (int i = 0; i < 8; i++) {
+            int div = FACT[7 - i];
+            int v = SELECT[unused << 3 | coord / div];
+            coord %= div;
+            unused &= ~(1 << v);
+            out[off + i] = (byte) v;
+        }
+    }
+
+    // Rank of the UD edges 0..7 in the order they appear in ep, 0 if any sits in the slice
+    static int rankUDEdges(byte[] ep) {
+        int coord = 0, unused = 0xFF, i = 0;
+        for (int pos = 0; pos < 12; pos++) {
+            int v = ep[pos];
+            if (v >= 8) continue;
+            coord = coord * (8 - i) + Integer.bitCount(unused & ((1 << v) - 1));
+            unused &= ~(1 << v);
+            i++;
+        }
+        return i == 8 ? coord : 0;
+    }
+
+    // Rank of ep[off..off+4) as a permutation of base..base+3, 0 if another edge is there
+    static int rankPerm4(byte[] ep, int off, int base) {
+        int packed = 0;
+        for (int i = 0; i < 4; i++) {
+            int v = ep[off + i] - base;
+            if (v < 0 || v > 3) return 0;
+            packed = packed << 2 | v;
+        }
+        return PERM4_RANK[packed];
+    }
+
+    static void unrankPerm4(int coord, byte[] ep, int off, int base) {
+        int packed = PERM4[coord];
+        for (int i = 3; i >= 0; i--) {
+            ep[off + i] = (byte) (base + (packed & 3));
+            packed >>= 2;
+        }
+    }
+
+    // Positions of edges base..base+3 as a combination (positions scanned from 11 down)
+    static int rankEdge4Positions(byte[] ep, int base) {
+        int comb = 0, r = 4;
+        for (int i = 11; i >= 0 && r > 0; i--) {
+            int e = ep[i] - base;
+            if (e >= 0 && e < 4) comb += BINOM[i][r--];
+        }
+        return comb;
+    }
+
+    // comb * 24 + rank of the four edges' order by ascending position
+    static int rankEdge4PosPerm(byte[] ep, int base) {
+        int comb = 0, r = 4, packed = 0;
+        for (int i = 11; i >= 0 && r > 0; i--) {
+            int e = ep[i] - base;
+            if (e >= 0 && e < 4) {
+                comb += BINOM[i][r];
+                r--;
+                packed |= e << (2 * (3 - r));
+            }
+        }
+        return comb * 24 + PERM4_RANK[packed];
+    }
+
+    // Writes edges base..base+3 at the positions and in the order given by coord
+    static void placeEdge4(byte[] ep, int base, int coord) {
+        int packed = PERM4[coord % 24];
+        int comb = coord / 24, r = 4;
+        for (int i = 11; i >= 0 && r > 0; i--) {
+            int c = BINOM[i][r];
+            if (comb >= c) {
+                comb -= c;
+                r--;
+                ep[i] = (byte) (base + (packed >> (2 * (3 - r)) & 3));
+            }
+        }
+    }
+
+    // Marks the slice-edge positions of a UD-slice combination in ep with FR..BR (in order), leaves the rest at -1
+    static void placeSliceEdges(byte[] ep, int coord) {
+        int r = 4, placed = 0;
+        for (int i = 11; i >= 0 && r > 0; i--) {
+            int c = BINOM[i][r];
+            if (coord >= c) {
+                ep[i] = (byte) (CubieCube.FR + placed++);
+                coord -= c;
+                r--;
+            }
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package rubikscube;
+
+import java.util.Arrays;
+
+// Cheapest-cost distance tables under a MoveCostModel, the weighted counterparts of the
+// LightPruningTables coSlice/eoSlice (phase 1) and cp/udEp/cp+parity (phase 2) tables.
+// Built with Dial's algorithm: costs are small integers, so each distance level is
+// settled by one scan over the table. Distances are shorts: with costs up to 15 a
+// phase-1 distance of 12 turns is already 180, past what a byte holds.
+final class CostPruningTables {
+
+    private static final int N_SLICE = LightPruningTables.N_SLICE;
+    private static final int SLICE_SOLVED = CubieCube.SLICE_SOLVED_COORD;
+
+    final short[] coSlice;
+    final short[] eoSlice;
+    final short[] cp;
+    final short[] udEp;
+    final short[] cpParity;
+
+    private final MoveCostModel model;
+    // parity flip of the UD-edge permutation for each phase-2 move
+    private final int[][] udParityFlip = new int[6][4];
+
+    private interface Transition {
+        int apply(int state, int move, int power);
+    }
+
+    CostPruningTables(MoveCostModel model) {
+        this.model = model;
+        MoveTables.init();
+        for (int m = 0; m < 6; m++) {
+            for (int p = 1; p <= 3; p++) {
+                udParityFlip[m][p] = LightPruningTables.permParityFromCoord(MoveTables.applyUDEP(m, p, 0));
+            }
+        }
+        coSlice = build(LightPruningTables.N_CO * N_SLICE, SLICE_SOLVED, false, (s, m, p) ->
+                MoveTables.applyCO(m, p, s / N_SLICE) * N_SLICE + MoveTables.applySlice(m, p, s % N_SLICE));
+        eoSlice = build(LightPruningTables.N_EO * N_SLICE, SLICE_SOLVED, false, (s, m, p) ->
+                MoveTables.applyEO(m, p, s / N_SLICE) * N_SLICE + MoveTables.applySlice(m, p, s % N_SLICE));
+        cp = build(LightPruningTables.N_CP, 0, true, (s, m, p) -> MoveTables.applyCP(m, p, s));
+        udEp = build(LightPruningTables.N_UD_EP, 0, true, (s, m, p) -> MoveTables.applyUDEP(m, p, s));
+        cpParity = build(LightPruningTables.N_CP * 2, 0, true, (s, m, p) ->
+                MoveTables.applyCP(m, p, s >> 1) * 2 + ((s & 1) ^ udParityFlip[m][p]));
+    }
+
+    private short[] build(int n, int start, boolean phase2, Transition t) {
+        short[] dist = new short[n];
+        Arrays.fill(dist, (short) -1);
+        dist[start] = 0;
+        int maxAssigned = 0;
+        for (int d = 0; d <= maxAssigned; d++) {
+            for (int s = 0; s < n; s++) {
+                if (dist[s] != d) continue;
+                for (int m = 0; m < 6; m++) {
+                    boolean isUD = (m == Moves.U || m == Moves.D);
+                    for (int p = 1; p <= 3; p++) {
+                        if (phase2 && !isUD && p != 2) continue;
+                        int ns = t.apply(s, m, p);
+                        int nd = d + model.cost(m, p);
+                        if (dist[ns] == -1 || nd < dist[ns]) {
+                            dist[ns] = (short) nd;
+                            if (nd > maxAssigned) maxAssigned = nd;
+                        }
+                    }
+                }
+            }
+        }
+        return dist;
+    }
+
+    int phase1(int co, int eo, int sl) {
+        int hCo = coSlice[co * N_SLICE + sl];
+        int hEo = eoSlice[eo * N_SLICE + sl];
+        return Math.max(Math.max(hCo, hEo), 0);
+    }
+
+    int phase2(int cpCoord, int udCoord) {
+        int parity = LightPruningTables.permParityFromCoord(udCoord) & 1;
+        int h = Math.max(cp[cpCoord], udEp[udCoord]);
+        return Math.max(Math.max(h, cpParity[cpCoord * 2 + parity]), 0);
+    }
+}
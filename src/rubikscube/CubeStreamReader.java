@@ -0,0 +1,160 @@
+package rubikscube;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads many cubes from one file through a FileChannel. A cube is the 54 stickers in net
+ * reading order (U rows, the L F R B rows, D rows), so both of these work and can be mixed:
+ *   - one 54-character line per cube (FaceCube.toLine)
+ *   - nine-line nets as in testcases/, back to back, blank lines optional
+ * Spaces, tabs and carriage returns are skipped, blank lines too. Every other line must hold
+ * a whole cube or the next row of a net (3, 3, 3, 12, 12, 12, 3, 3, 3 stickers); anything else
+ * throws IllegalArgumentException, once per malformed cube, so the caller can report that
+ * cube and call next() again. A bad one-line cube is just that line. For a bad net row the
+ * rest of its nine-row net is skipped too, up to a blank line or a 54-sticker line (which is
+ * kept as the next cube); a first line of at most 12 stickers counts as a net row. Bytes are
+ * scanned straight out of a reused buffer into the caller's facelet array, so next()
+ * allocates nothing.
+ */
+public final class CubeStreamReader implements Closeable {
+
+    public static final int BUFFER_SIZE = 1 << 16;
+
+    // reading-order position -> facelet index (layout of Solver.parseNet)
+    private static final int[] NET_ORDER = new int[54];
+
+    static {
+        for (int k = 0; k < 54; k++) {
+            if (k < 9 || k >= 45) {
+                NET_ORDER[k] = k;
+            } else {
+                int row = (k - 9) / 12, col = (k - 9) % 12;
+                NET_ORDER[k] = 9 + (col / 3) * 9 + row * 3 + col % 3;
+            }
+        }
+    }
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final byte[] bytes = buffer.array();
+    private int pos;
+    private int limit;
+    private boolean eof;
+    private long line = 1;
+    private long count;
+    // a 54-sticker line met while skipping a bad net, in reading order, returned by the next call
+    private final char[] pending = new char[54];
+    private boolean hasPending;
+
+    public CubeStreamReader(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+    }
+
+    // Fills facelets (length 54) with the next cube; false at end of input
+    public boolean next(char[] facelets) throws IOException {
+        if (hasPending) {
+            hasPending = false;
+            for (int k = 0; k < 54; k++) facelets[NET_ORDER[k]] = pending[k];
+            count++;
+            return true;
+        }
+        int k = 0, onLine = 0, rows = 0;
+        long startLine = line;
+        while (true) {
+            // the end of input closes the last line like a newline would
+            boolean end = pos == limit && !fill();
+            byte b = end ? (byte) '\n' : bytes[pos++];
+            if (b == '\n') {
+                long at = line;
+                if (!end) line++;
+                if (onLine > 0) {
+                    int first = k - onLine;
+                    rows++;
+                    if (!(first == 0 && onLine == 54) && onLine != rowLength(first)) {
+                        if (!end && (first > 0 || onLine <= 12)) skipNet(9 - rows);
+                        throw new IllegalArgumentException("line " + at + ": " + onLine + " stickers, expected "
+                                + (first == 0 ? "54 or a net row of 3" : "net row of " + rowLength(first)));
+                    }
+                    onLine = 0;
+                    if (k == 54) break;
+                }
+                if (end) {
+                    if (k == 0) return false;
+                    throw new IllegalArgumentException("line " + startLine + ": cube truncated after " + k + " stickers");
+                }
+                continue;
+            }
+            if (b == ' ' || b == '\t' || b == '\r') continue;
+            if (k == 0) startLine = line;
+            // a line that overruns the cube is rejected at its end
+            if (k < 54) facelets[NET_ORDER[k]] = (char) b;
+            k++;
+            onLine++;
+        }
+        count++;
+        return true;
+    }
+
+    // Reads up to rowsLeft more non-blank lines of a bad net. Stops early after a blank line,
+    // or at a 54-sticker line, which becomes the pending next cube.
+    private void skipNet(int rowsLeft) throws IOException {
+        int onLine = 0;
+        while (rowsLeft > 0) {
+            boolean end = pos == limit && !fill();
+            byte b = end ? (byte) '\n' : bytes[pos++];
+            if (b == '\n') {
+                if (!end) line++;
+                if (onLine == 0 || onLine == 54) {
+                    hasPending = onLine == 54;
+                    return;
+                }
+                if (end) return;
+                rowsLeft--;
+                onLine = 0;
+                continue;
+            }
+            if (b == ' ' || b == '\t' || b == '\r') continue;
+            if (onLine < 54) pending[onLine] = (char) b;
+            onLine++;
+        }
+    }
+
+    // Stickers in the net row that starts at reading-order position k, or -1 if no row starts there
+    private static int rowLength(int k) {
+        return switch (k) {
+            case 0, 3, 6, 45, 48, 51 -> 3;
+            case 9, 21, 33 -> 12;
+            default -> -1;
+        };
+    }
+
+    private boolean fill() throws IOException {
+        if (eof) return false;
+        buffer.clear();
+        int n;
+        do {
+            n = channel.read(buffer);
+        } while (n == 0);
+        if (n < 0) {
+            eof = true;
+            pos = limit = 0;
+            return false;
+        }
+        pos = 0;
+        limit = n;
+        return true;
+    }
+
+    public long getCount() { return count; }
+    public long getLineNumber() { return line; }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
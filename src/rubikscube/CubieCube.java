@@ -27,6 +27,7 @@ public class CubieCube {
     public static final int FL = 9;
     public static final int BL = 10;
     public static final int BR = 11;
+    private static final byte[] SOLVED_EP = {UR, UF, UL, UB, DR, DF, DL, DB, FR, FL, BL, BR};
     public static final int SLICE_SOLVED_COORD = new CubieCube().getUDSliceCoord();
 
     //Corner permutation, corner orientaion, edge permutation and edge orientation
@@ -41,10 +42,18 @@ public class CubieCube {
     }
 
     public CubieCube(CubieCube c) {
-        this.cp = Util.copyArray(c.cp);
-        this.co = Util.copyArray(c.co);
-        this.ep = Util.copyArray(c.ep);
-        this.eo = Util.copyArray(c.eo);
+        this.cp = c.cp.clone();
+        this.co = c.co.clone();
+        this.ep = c.ep.clone();
+        this.eo = c.eo.clone();
+    }
+
+    // Copies c into this cube without allocating
+    public void copyFrom(CubieCube c) {
+        System.arraycopy(c.cp, 0, cp, 0, 8);
+        System.arraycopy(c.co, 0, co, 0, 8);
+        System.arraycopy(c.ep, 0, ep, 0, 12);
+        System.arraycopy(c.eo, 0, eo, 0, 12);
     }
 
     // helpers
@@ -109,8 +118,9 @@ public class CubieCube {
         }
     }
 
+    // One table-driven step for any power (PackedCube holds the tables, derived from move())
     public void applyMove(int move, int power) {
-        for (int i = 0; i < power; i++) move(move);
+        PackedCube.applyMove(this, move, power);
     }
 
     public boolean isSolved() {
@@ -152,39 +162,13 @@ public class CubieCube {
     }
 
     // UD-slice coordinate
-    private int nCr(int n, int r) {
-        if (r > n) return 0;
-        int res = 1;
-        for (int i = 1; i <= r; i++) res = res * (n - i + 1) / i;
-        return res;
-    }
-
     public int getUDSliceCoord() {
-        int coord = 0;
-        int r = 4;
-        for (int i = 11; i >= 0 && r > 0; i--) {
-            int e = ep[i];
-            if (e == FR || e == FL || e == BL || e == BR) {
-                coord += nCr(i, r);
-                r--;
-            }
-        }
-        return coord;
+        return CoordCodec.rankEdge4Positions(ep, FR);
     }
 
     public void setUDSliceCoord(int coord) {
         Arrays.fill(ep, (byte)-1);
-        int r = 4;
-        int placed = 0;
-        for (int i = 11; i >= 0 && r > 0; i--) {
-            int comb = nCr(i, r);
-            if (coord >= comb) {
-                ep[i] = (byte)(FR + placed);
-                placed++;
-                coord -= comb;
-                r--;
-            }
-        }
+        CoordCodec.placeSliceEdges(ep, coord);
         int e = 0;
         for (int i = 0; i < 12; i++) {
             if (ep[i] == -1) {
@@ -194,108 +178,67 @@ public class CubieCube {
         }
     }
 
-    // Corner permutation coord
-    public int getCornerPermCoord() {
-        int coord = 0; int[] used = new int[8];
-        for (int i = 0; i < 8; i++) {
-            int v = cp[i]; int smaller = 0;
-            for (int j = 0; j < v; j++) if (used[j] == 0) smaller++;
-            coord = coord * (8 - i) + smaller;
-            used[v] = 1;
-        }
-        return coord;
+    // Position + order coordinate of the four edges base..base+3 (U: 0, D: 4, slice: 8).
+    // 495 position combinations * 24 orders; unlike the UD-edge permutation it stays
+    // well defined under all 18 moves.
+    public int getEdge4PosPermCoord(int base) {
+        return CoordCodec.rankEdge4PosPerm(ep, base);
     }
 
-    public void setCornerPermCoord(int coord) {
-        int[] perm = new int[8]; boolean[] used = new boolean[8];
-        int[] fact = new int[9]; fact[0]=1; for (int i=1;i<=8;i++) fact[i]=fact[i-1]*i;
-        int rem = coord;
-        for (int i = 0; i < 8; i++) {
-            int div = fact[7 - i];
-            int index = rem / div; rem = rem % div;
-            int j = 0, cnt = 0;
-            while (true) {
-                if (!used[j]) {
-                    if (cnt == index) break;
-                    cnt++;
-                }
-                j++;
+    public void setEdge4PosPermCoord(int base, int coord) {
+        Arrays.fill(ep, (byte)-1);
+        placeEdge4(base, coord);
+        int e = 0;
+        for (int i = 0; i < 12; i++) {
+            if (ep[i] == -1) {
+                while (e >= base && e < base + 4) e++;
+                ep[i] = (byte)e++;
             }
-            perm[i] = j; used[j] = true;
         }
-        for (int i = 0; i < 8; i++) cp[i] = (byte)perm[i];
     }
 
+    // Rebuilds the edge permutation of a phase-1 endpoint (slice edges inside the slice)
+    // from its U- and D-edge position coordinates; slice edges are put in solved order.
+    public void setUDEdgesFromEdge4Coords(int uCoord, int dCoord) {
+        for (int i = 0; i < 8; i++) ep[i] = -1;
+        for (int i = 8; i < 12; i++) ep[i] = (byte)i;
+        placeEdge4(0, uCoord);
+        placeEdge4(4, dCoord);
+    }
 
-    private int permCoord4(int[] perm) {
-        int coord = 0;
-        boolean[] used = new boolean[4];
-        for (int i = 0; i < 4; i++) {
-            int v = perm[i];
-            int smaller = 0;
-            for (int j = 0; j < v; j++) if (!used[j]) smaller++;
-            coord = coord * (4 - i) + smaller;
-            used[v] = true;
-        }
-        return coord;
+    private void placeEdge4(int base, int coord) {
+        CoordCodec.placeEdge4(ep, base, coord);
     }
 
-    private void setPerm4(int coord, int[] out) {
-        boolean[] used = new boolean[4];
-        int[] fact = {1,1,2,6,24};
-        int rem = coord;
-        for (int i = 0; i < 4; i++) {
-            int div = fact[3 - i];
-            int index = rem / div; rem %= div;
-            int j = 0, cnt = 0;
-            while (true) {
-                if (!used[j]) {
-                    if (cnt == index) break;
-                    cnt++;
-                }
-                j++;
-            }
-            out[i] = j;
-            used[j] = true;
-        }
+    public static CubieCube fromEdge4PosPermCoord(int base, int coord) { CubieCube c = new CubieCube(); c.setEdge4PosPermCoord(base, coord); return c; }
+
+    // Corner permutation coord
+    public int getCornerPermCoord() {
+        return CoordCodec.rankPerm8(cp, 0);
+    }
+
+    public void setCornerPermCoord(int coord) {
+        CoordCodec.unrankPerm8(coord, cp, 0);
     }
 
     public int getUEdgePermCoord() {
-        int[] perm = new int[4];
-        for (int i = 0; i < 4; i++) {
-            int e = ep[i];
-            if (e < 0 || e > 3) return 0;
-            perm[i] = e;
-        }
-        return permCoord4(perm);
+        return CoordCodec.rankPerm4(ep, 0, UR);
     }
 
     public void setUEdgePermCoord(int coord) {
-        byte[] solved = {UR, UF, UL, UB, DR, DF, DL, DB, FR, FL, BL, BR};
-        System.arraycopy(solved, 0, ep, 0, ep.length);
-        int[] perm = new int[4];
-        setPerm4(coord, perm);
-        for (int i = 0; i < 4; i++) ep[i] = (byte)perm[i];
+        System.arraycopy(SOLVED_EP, 0, ep, 0, ep.length);
+        CoordCodec.unrankPerm4(coord, ep, 0, UR);
     }
 
     public static CubieCube fromUEdgePermCoord(int coord) { CubieCube c = new CubieCube(); c.setUEdgePermCoord(coord); return c; }
 
     public int getDEdgePermCoord() {
-        int[] perm = new int[4];
-        for (int i = 0; i < 4; i++) {
-            int e = ep[4 + i];
-            if (e < 4 || e > 7) return 0;
-            perm[i] = e - 4;
-        }
-        return permCoord4(perm);
+        return CoordCodec.rankPerm4(ep, 4, DR);
     }
 
     public void setDEdgePermCoord(int coord) {
-        byte[] solved = {UR, UF, UL, UB, DR, DF, DL, DB, FR, FL, BL, BR};
-        System.arraycopy(solved, 0, ep, 0, ep.length);
-        int[] perm = new int[4];
-        setPerm4(coord, perm);
-        for (int i = 0; i < 4; i++) ep[i + 4] = (byte)(perm[i] + 4);
+        System.arraycopy(SOLVED_EP, 0, ep, 0, ep.length);
+        CoordCodec.unrankPerm4(coord, ep, 4, DR);
     }
 
     public static CubieCube fromDEdgePermCoord(int coord) { CubieCube c = new CubieCube(); c.setDEdgePermCoord(coord); return c; }
@@ -312,43 +255,11 @@ public class CubieCube {
 
     // UD-edge permutation coordinate
     public int getUDEdgePermCoord() {
-        int[] perm = new int[8];
-        int idx = 0;
-        for (int i = 0; i < 12; i++) {
-            int e = ep[i];
-            if (e < 8) perm[idx++] = e;
-        }
-        if (idx != 8) return 0;
-
-        int coord = 0; int[] used = new int[8];
-        for (int i = 0; i < 8; i++) {
-            int v = perm[i];
-            int smaller = 0;
-            for (int j = 0; j < v; j++) if (used[j] == 0) smaller++;
-            coord = coord * (8 - i) + smaller;
-            used[v] = 1;
-        }
-        return coord;
+        return CoordCodec.rankUDEdges(ep);
     }
 
     public void setUDEdgePermCoord(int coord) {
-        int[] perm = new int[8]; boolean[] used = new boolean[8];
-        int[] fact = new int[9]; fact[0]=1; for (int i=1;i<=8;i++) fact[i]=fact[i-1]*i;
-        int rem = coord;
-        for (int i = 0; i < 8; i++) {
-            int div = fact[7 - i];
-            int index = rem / div; rem = rem % div;
-            int j = 0, cnt = 0;
-            while (true) {
-                if (!used[j]) {
-                    if (cnt == index) break;
-                    cnt++;
-                }
-                j++;
-            }
-            perm[i] = j; used[j] = true;
-        }
-        for (int i = 0; i < 8; i++) ep[i] = (byte)perm[i];
+        CoordCodec.unrankPerm8(coord, ep, 0);
         ep[8]=FR; ep[9]=FL; ep[10]=BL; ep[11]=BR;
     }
 
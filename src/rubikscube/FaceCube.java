@@ -1,5 +1,9 @@
 package rubikscube;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 public class FaceCube {
 
     // Assignment color scheme:
@@ -50,106 +54,145 @@ public class FaceCube {
             {39, 32} //11 BR
     };
 
-    // dynamic color accessors to ensure centers are already captured
-    private char[][] cornerColors() {
-        return new char[][] {
-                {Uc, Rc, Fc}, // URF
-                {Uc, Fc, Lc}, // UFL
-                {Uc, Lc, Bc}, // ULB
-                {Uc, Bc, Rc}, // UBR
-                {Dc, Fc, Rc}, // DFR
-                {Dc, Lc, Fc}, // DLF
-                {Dc, Bc, Lc}, // DBL
-                {Dc, Rc, Bc} // DRB
-        };
+    // Faces in Moves order (U R F D L B) of each corner's / edge's stickers, reference orientation
+    private static final int[][] CORNER_FACES = {
+            {0, 1, 2}, {0, 2, 4}, {0, 4, 5}, {0, 5, 1},
+            {3, 2, 1}, {3, 4, 2}, {3, 5, 4}, {3, 1, 5}
+    };
+    private static final int[][] EDGE_FACES = {
+            {0, 1}, {0, 2}, {0, 4}, {0, 5},
+            {3, 1}, {3, 2}, {3, 4}, {3, 5},
+            {2, 1}, {2, 4}, {5, 4}, {5, 1}
+    };
+    private static final int[] CENTER_FACELET = {4, 31, 22, 49, 13, 40};
+
+    // Sticker faces as seen at a slot, in CORNER_FACELET / EDGE_FACELET order -> cubie << 2 | orientation,
+    // -1 for no such cubie.
+    // Corner index a * 36 + b * 6 + c, edge index a * 6 + b.
+    private static final byte[] CORNER_LOOKUP = new byte[216];
+    private static final byte[] EDGE_LOOKUP = new byte[36];
+
+    // Default sticker colors by face (U R F D L B), per the assignment scheme above
+    public static final char[] DEFAULT_COLORS = {'O', 'B', 'W', 'R', 'G', 'Y'};
+
+    static {
+        Arrays.fill(CORNER_LOOKUP, (byte) -1);
+        Arrays.fill(EDGE_LOOKUP, (byte) -1);
+        for (int c = 0; c < 8; c++) {
+            int[] k = CORNER_FACES[c];
+            // twist o puts the U/D sticker at index o, the others following cyclically
+            for (int o = 0; o < 3; o++) {
+                int[] seen = new int[3];
+                for (int i = 0; i < 3; i++) seen[(i + o) % 3] = k[i];
+                CORNER_LOOKUP[seen[0] * 36 + seen[1] * 6 + seen[2]] = (byte) (c << 2 | o);
+            }
+        }
+        for (int e = 0; e < 12; e++) {
+            int[] k = EDGE_FACES[e];
+            EDGE_LOOKUP[k[0] * 6 + k[1]] = (byte) (e << 2);
+            EDGE_LOOKUP[k[1] * 6 + k[0]] = (byte) (e << 2 | 1);
+        }
     }
 
-    private char[][] edgeColors() {
-        return new char[][] {
-                {Uc, Rc}, // UR
-                {Uc, Fc}, // UF
-                {Uc, Lc}, // UL
-                {Uc, Bc}, // UB
-                {Dc, Rc}, // DR
-                {Dc, Fc}, // DF
-                {Dc, Lc}, // DL
-                {Dc, Bc}, // DB
-                {Fc, Rc}, // FR
-                {Fc, Lc}, // FL
-                {Bc, Lc}, // BL
-                {Bc, Rc} // BR
-        };
+    // Face (U R F D L B = 0..5) whose center has color ch, or -1
+    private int face(char ch) {
+        if (ch == Uc) return 0;
+        if (ch == Rc) return 1;
+        if (ch == Fc) return 2;
+        if (ch == Dc) return 3;
+        if (ch == Lc) return 4;
+        if (ch == Bc) return 5;
+        return -1;
     }
 
-    // Corner permutation and orientation
-    public byte getCornerPerm(int c) {
-        char a = f[CORNER_FACELET[c][0]];
-        char b = f[CORNER_FACELET[c][1]];
-        char d = f[CORNER_FACELET[c][2]];
-        return findCorner(a, b, d);
+    private int cornerEntry(int c) {
+        int[] fl = CORNER_FACELET[c];
+        int a = face(f[fl[0]]), b = face(f[fl[1]]), d = face(f[fl[2]]);
+        if (a < 0 || b < 0 || d < 0) return -1;
+        return CORNER_LOOKUP[a * 36 + b * 6 + d];
     }
 
-    public byte getCornerOri(int c) {
-        char a = f[CORNER_FACELET[c][0]];
-        char b = f[CORNER_FACELET[c][1]];
-        char d = f[CORNER_FACELET[c][2]];
-
-        byte corner = findCorner(a, b, d);
-
-        if (corner == -1) return 0;
-
-        char[] cols = {a, b, d};
-
-        for (byte ori = 0; ori < 3; ori++)
-            if (cols[ori] == Uc || cols[ori] == Dc)
-                return ori;
-
-        return 0;
+    private int edgeEntry(int e) {
+        int[] fl = EDGE_FACELET[e];
+        int a = face(f[fl[0]]), b = face(f[fl[1]]);
+        if (a < 0 || b < 0) return -1;
+        return EDGE_LOOKUP[a * 6 + b];
     }
 
-    private byte findCorner(char a, char b, char c) {
-        char[][] ccArr = cornerColors();
-        for (byte i = 0; i < 8; i++) {
-            char[] CC = ccArr[i];
-            if (match3(a, b, c, CC[0], CC[1], CC[2])) return i;
-        }
-        return -1;
+    // Corner permutation and orientation
+    public byte getCornerPerm(int c) {
+        int v = cornerEntry(c);
+        return (byte) (v < 0 ? -1 : v >> 2);
     }
 
-    private boolean match3(char a, char b, char c, char x, char y, char z) {
-        return (a==x && b==y && c==z)
-                || (a==y && b==z && c==x)
-                || (a==z && b==x && c==y);
+    public byte getCornerOri(int c) {
+        int v = cornerEntry(c);
+        return (byte) (v < 0 ? 0 : v & 3);
     }
 
     // Edge permutation and orientation
     public byte getEdgePerm(int e) {
-        char a = f[EDGE_FACELET[e][0]];
-        char b = f[EDGE_FACELET[e][1]];
-        return findEdge(a, b);
+        int v = edgeEntry(e);
+        return (byte) (v < 0 ? -1 : v >> 2);
     }
 
     public byte getEdgeOri(int e) {
-        char a = f[EDGE_FACELET[e][0]];
-        char b = f[EDGE_FACELET[e][1]];
-        byte edge = findEdge(a, b);
+        int v = edgeEntry(e);
+        return (byte) (v < 0 ? 0 : v & 1);
+    }
 
-        if (edge == -1) return 0;
+    // All cubies in one pass into out; unknown sticker combinations give -1 (rejected by NetToCubie.validate)
+    public void toCubieCube(CubieCube out) {
+        for (int i = 0; i < 8; i++) {
+            int v = cornerEntry(i);
+            out.cp[i] = (byte) (v < 0 ? -1 : v >> 2);
+            out.co[i] = (byte) (v < 0 ? 0 : v & 3);
+        }
+        for (int i = 0; i < 12; i++) {
+            int v = edgeEntry(i);
+            out.ep[i] = (byte) (v < 0 ? -1 : v >> 2);
+            out.eo[i] = (byte) (v < 0 ? 0 : v & 1);
+        }
+    }
 
-        // Orientation rules (Kociemba style)
-        if (edge >= 8 && edge <= 11) {
-            return (byte) ((a == Fc || a == Bc) ? 0 : 1);
+    // Cubie -> facelet direction: the 54 stickers of c, colored by face (U R F D L B)
+    public static void render(CubieCube c, char[] faceColors, char[] out) {
+        for (int face = 0; face < 6; face++) out[CENTER_FACELET[face]] = faceColors[face];
+        for (int i = 0; i < 8; i++) {
+            int[] faces = CORNER_FACES[c.cp[i]];
+            int o = c.co[i];
+            for (int k = 0; k < 3; k++) out[CORNER_FACELET[i][(k + o) % 3]] = faceColors[faces[k]];
+        }
+        for (int i = 0; i < 12; i++) {
+            int[] faces = EDGE_FACES[c.ep[i]];
+            int o = c.eo[i];
+            for (int k = 0; k < 2; k++) out[EDGE_FACELET[i][(k + o) & 1]] = faceColors[faces[k]];
         }
-        return (byte) ((a == Uc || a == Dc) ? 0 : 1);
     }
 
-    private byte findEdge(char a, char b) {
-        char[][] edgeColor = edgeColors();
-        for (byte i = 0; i < 12; i++) {
-            char x = edgeColor[i][0];
-            char y = edgeColor[i][1];
-            if ((a==x && b==y) || (a==y && b==x)) return i;
+    public static char[] render(CubieCube c) {
+        char[] out = new char[54];
+        render(c, DEFAULT_COLORS, out);
+        return out;
+    }
+
+    // The 9-line net read by Solver.parseNet: U, then L F R B side by side, then D
+    public static List<String> toNet(char[] f) {
+        List<String> lines = new ArrayList<>(9);
+        for (int r = 0; r < 3; r++) lines.add("   " + new String(f, r * 3, 3));
+        for (int r = 0; r < 3; r++) {
+            StringBuilder sb = new StringBuilder(12);
+            for (int face = 9; face < 45; face += 9) sb.append(f, face + r * 3, 3);
+            lines.add(sb.toString());
         }
-        return -1;
+        for (int r = 0; r < 3; r++) lines.add("   " + new String(f, 45 + r * 3, 3));
+        return lines;
+    }
+
+    // The same stickers on one line, in net reading order (what CubeStreamReader reads)
+    public static String toLine(char[] f) {
+        StringBuilder sb = new StringBuilder(54);
+        for (String row : toNet(f)) sb.append(row, row.length() == 12 ? 0 : 3, row.length());
+        return sb.toString();
     }
 }
@@ -0,0 +1,290 @@
+package rubikscube;
+
+import java.util.Arrays;
+import java.util.function.LongPredicate;
+
+// Phase-2 search that keeps the frontier of the previous threshold instead of restarting
+// from the root every iteration (IDA* with a stored frontier, as in Fringe search).
+// States are (cp, udEp, slice edge order), so the goal test is exact. Nodes and the
+// g-value cache live in primitive arrays; when either outgrows nodeCap the search
+// gives up with OVER_CAP and the caller falls back to plain IDA*.
+final class FringePhase2Search {
+
+    static final int NOT_FOUND = -1;
+    static final int OVER_CAP = -2;
+
+    private static final int SLICE_SOLVED = CubieCube.SLICE_SOLVED_COORD;
+    private static final int SLICE4_SOLVED = new CubieCube().getEdge4PosPermCoord(8);
+
+    // U/D edge permutation coordinates as a function of the UD-edge permutation
+    private static int[] udToUe;
+    private static int[] udToDe;
+
+    private final int nodeCap;
+    // polled every checkInterval nodes with the nodes searched so far; true stops the search
+    private final int checkInterval;
+    private final LongPredicate stop;
+    private int pollCountdown;
+    private boolean stopped;
+
+    // node pool
+    private int[] nodeCp, nodeUd, nodeS4, nodeParent;
+    private byte[] nodeG, nodeMove;
+    private int poolSize;
+
+    // frontier lists (pool indices)
+    private int[] frontier, nextFrontier;
+    private int frontierSize, nextFrontierSize;
+
+    // g-value cache: open addressing, key 0 = empty
+    private long[] cacheKeys;
+    private byte[] cacheG;
+    private int cacheMask, cacheSize;
+
+    // current DFS path below a frontier node
+    private final int[] stackPool = new int[64];
+    private final int[] stackMove = new int[64];
+    private final int[] stackCp = new int[64], stackUd = new int[64], stackS4 = new int[64];
+
+    private int threshold, nextThreshold, maxDepth;
+    private boolean overCap;
+    private long nodes;
+
+    FringePhase2Search(int nodeCap, int checkInterval, LongPredicate stop) {
+        this.nodeCap = nodeCap;
+        this.checkInterval = checkInterval;
+        this.stop = stop;
+        initUdTables();
+    }
+
+    private static synchronized void initUdTables() {
+        if (udToUe != null) return;
+        int[] ue = new int[LightPruningTables.N_UD_EP];
+        int[] de = new int[LightPruningTables.N_UD_EP];
+        for (int ud = 0; ud < ue.length; ud++) {
+            CubieCube c = CubieCube.fromUDEdgePermCoord(ud);
+            ue[ud] = c.getUEdgePermCoord();
+            de[ud] = c.getDEdgePermCoord();
+        }
+        udToDe = de;
+        udToUe = ue;
+    }
+
+    long getNodes() { return nodes; }
+
+    private static int h(int cp, int ud) {
+        return TwoPhaseIDA.heuristicPhase2Coord(cp, SLICE_SOLVED, ud, udToUe[ud], udToDe[ud]);
+    }
+
+    // Writes the phase-2 moves to moves/powers starting at offset and returns their count,
+    // or NOT_FOUND when nothing exists within maxDepth, or OVER_CAP.
+    int search(int cp, int ud, int s4, int maxDepth, boolean blockOpposite,
+               int[] moves, int[] powers, int offset) {
+        this.maxDepth = maxDepth;
+        nodes = 0;
+        overCap = false;
+        stopped = false;
+        pollCountdown = checkInterval;
+        reset();
+
+        int root = newNode(cp, ud, s4, 0, -1, -1);
+        cachePut(key(cp, ud, s4), 0);
+        frontier[0] = root;
+        frontierSize = 1;
+        threshold = h(cp, ud);
+
+        while (threshold <= maxDepth) {
+            nextFrontierSize = 0;
+            nextThreshold = Integer.MAX_VALUE;
+            for (int i = 0; i < frontierSize; i++) {
+                if (stopped) return NOT_FOUND;
+                int n = frontier[i];
+                int g = nodeG[n];
+                // reached again later with a smaller g; that copy is in the frontier too
+                if (cacheGet(key(nodeCp[n], nodeUd[n], nodeS4[n])) < g) continue;
+                stackPool[g] = n;
+                stackCp[g] = nodeCp[n]; stackUd[g] = nodeUd[n]; stackS4[g] = nodeS4[n];
+                int last = nodeMove[n] < 0 ? -1 : nodeMove[n] >> 2;
+                int found = dfs(g, g, last, blockOpposite);
+                if (stopped) return NOT_FOUND;
+                if (overCap) return OVER_CAP;
+                if (found >= 0) return writePath(found, moves, powers, offset);
+            }
+            if (nextFrontierSize == 0 || nextThreshold > maxDepth) return NOT_FOUND;
+            int[] t = frontier; frontier = nextFrontier; nextFrontier = t;
+            frontierSize = nextFrontierSize;
+            threshold = nextThreshold;
+        }
+        return NOT_FOUND;
+    }
+
+    // Returns the goal depth, or -1. base is the depth of the frontier node the DFS started from.
+    private int dfs(int depth, int base, int lastMove, boolean blockOpposite) {
+        nodes++;
+        int cp = stackCp[depth], ud = stackUd[depth], s4 = stackS4[depth];
+        if (cp == 0 && ud == 0 && s4 == SLICE4_SOLVED) return depth;
+        if (--pollCountdown <= 0) {
+            pollCountdown = checkInterval;
+            if (stop.test(nodes)) stopped = true;
+        }
+        if (stopped) return -1;
+
+        for (int move = 0; move < 6; move++) {
+            if (lastMove >= 0) {
+                if (blockOpposite) {
+                    if (Moves.blockPhase2Follow(lastMove, move)) continue;
+                } else if (lastMove == move) continue;
+            }
+            boolean isUD = (move == Moves.U || move == Moves.D);
+            for (int p = 1; p <= 3; p++) {
+                if (!isUD && p != 2) continue;
+                int ncp = MoveTables.applyCP(move, p, cp);
+                int nud = MoveTables.applyUDEP(move, p, ud);
+                int ns4 = MoveTables.applySliceEdge4(move, p, s4);
+                int g = depth + 1;
+                long k = key(ncp, nud, ns4);
+                if (cacheGet(k) <= g) continue;
+                if (!cachePut(k, g)) return -1;
+
+                int d = depth + 1;
+                stackMove[d] = move * 4 + p;
+                stackCp[d] = ncp; stackUd[d] = nud; stackS4[d] = ns4;
+                stackPool[d] = -1;
+                int f = g + h(ncp, nud);
+                if (f > threshold) {
+                    if (f <= maxDepth) {
+                        int n = materialize(d, base);
+                        if (n < 0) return -1;
+                        if (nextFrontierSize == nextFrontier.length) {
+                            if (nextFrontier.length == nodeCap) {
+                                overCap = true;
+                                return -1;
+                            }
+                            nextFrontier = Arrays.copyOf(nextFrontier, (int) Math.min(nodeCap, 2L * nextFrontier.length));
+                        }
+                        nextFrontier[nextFrontierSize++] = n;
+                        if (f < nextThreshold) nextThreshold = f;
+                    }
+                    continue;
+                }
+                int found = dfs(d, base, move, blockOpposite);
+                if (found >= 0 || overCap || stopped) return found;
+            }
+        }
+        return -1;
+    }
+
+    // Stores the DFS path from base+1 down to depth in the pool so a frontier node can find its way back.
+    private int materialize(int depth, int base) {
+        for (int d = base + 1; d <= depth; d++) {
+            if (stackPool[d] >= 0) continue;
+            int n = newNode(stackCp[d], stackUd[d], stackS4[d], d, stackPool[d - 1], stackMove[d]);
+            if (n < 0) return -1;
+            stackPool[d] = n;
+        }
+        return stackPool[depth];
+    }
+
+    private int writePath(int goalDepth, int[] moves, int[] powers, int offset) {
+        // moves below the DFS base come from the pool chain, the rest from the stack
+        int d = goalDepth;
+        while (d > 0 && stackPool[d] < 0) {
+            moves[offset + d - 1] = stackMove[d] >> 2;
+            powers[offset + d - 1] = stackMove[d] & 3;
+            d--;
+        }
+        for (int n = stackPool[d]; n >= 0 && nodeParent[n] >= 0; n = nodeParent[n]) {
+            int g = nodeG[n];
+            moves[offset + g - 1] = nodeMove[n] >> 2;
+            powers[offset + g - 1] = nodeMove[n] & 3;
+        }
+        return goalDepth;
+    }
+
+    private void reset() {
+        if (nodeCp == null) {
+            int initial = Math.min(nodeCap, 1 << 12);
+            nodeCp = new int[initial]; nodeUd = new int[initial]; nodeS4 = new int[initial];
+            nodeParent = new int[initial]; nodeG = new byte[initial]; nodeMove = new byte[initial];
+            frontier = new int[initial]; nextFrontier = new int[initial];
+            int cacheCap = Integer.highestOneBit(Math.max(16, nodeCap)) << 1;
+            cacheKeys = new long[Math.min(cacheCap, 1 << 12)];
+            cacheG = new byte[cacheKeys.length];
+            cacheMask = cacheKeys.length - 1;
+        }
+        poolSize = 0;
+        frontierSize = nextFrontierSize = 0;
+        Arrays.fill(cacheKeys, 0L);
+        cacheSize = 0;
+    }
+
+    private int newNode(int cp, int ud, int s4, int g, int parent, int move) {
+        if (poolSize == nodeCap) {
+            overCap = true;
+            return -1;
+        }
+        if (poolSize == nodeCp.length) {
+            int n = (int) Math.min(nodeCap, 2L * poolSize);
+            nodeCp = Arrays.copyOf(nodeCp, n);
+            nodeUd = Arrays.copyOf(nodeUd, n);
+            nodeS4 = Arrays.copyOf(nodeS4, n);
+            nodeParent = Arrays.copyOf(nodeParent, n);
+            nodeG = Arrays.copyOf(nodeG, n);
+            nodeMove = Arrays.copyOf(nodeMove, n);
+        }
+        int n = poolSize++;
+        nodeCp[n] = cp; nodeUd[n] = ud; nodeS4[n] = s4;
+        nodeG[n] = (byte) g; nodeParent[n] = parent; nodeMove[n] = (byte) move;
+        return n;
+    }
+
+    // cp < 2^16, ud < 2^16, s4 < 2^14; +1 keeps 0 free as the empty marker
+    private static long key(int cp, int ud, int s4) {
+        return (((long) s4 << 32) | ((long) ud << 16) | cp) + 1;
+    }
+
+    private int slot(long k) {
+        return (int) ((k * 0x9E3779B97F4A7C15L) >>> 40) & cacheMask;
+    }
+
+    private int cacheGet(long k) {
+        for (int i = slot(k); ; i = (i + 1) & cacheMask) {
+            long e = cacheKeys[i];
+            if (e == 0) return Integer.MAX_VALUE;
+            if (e == k) return cacheG[i];
+        }
+    }
+
+    private boolean cachePut(long k, int g) {
+        for (int i = slot(k); ; i = (i + 1) & cacheMask) {
+            long e = cacheKeys[i];
+            if (e == k) { cacheG[i] = (byte) g; return true; }
+            if (e == 0) {
+                if (cacheSize >= nodeCap) {
+                    overCap = true;
+                    return false;
+                }
+                cacheKeys[i] = k;
+                cacheG[i] = (byte) g;
+                if (++cacheSize * 2 > cacheKeys.length) growCache();
+                return true;
+            }
+        }
+    }
+
+    private void growCache() {
+        long[] oldKeys = cacheKeys;
+        byte[] oldG = cacheG;
+        cacheKeys = new long[oldKeys.length * 2];
+        cacheG = new byte[cacheKeys.length];
+        cacheMask = cacheKeys.length - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            long k = oldKeys[j];
+            if (k == 0) continue;
+            int i = slot(k);
+            while (cacheKeys[i] != 0) i = (i + 1) & cacheMask;
+            cacheKeys[i] = k;
+            cacheG[i] = oldG[j];
+        }
+    }
+}
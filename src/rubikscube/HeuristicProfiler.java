@@ -0,0 +1,133 @@
+package rubikscube;
+
+import java.util.Locale;
+
+/**
+ * Opt-in attribution of the TwoPhaseIDA lower bounds to their table lookups
+ * (-Dheuristic.profile=true; ENABLED is a constant, so the hooks vanish when it is off).
+ * Each node that heuristicPhase1Coord / heuristicPhase2Coord evaluates is decomposed
+ * into its terms, and every term is counted as:
+ *   max        - equal to the bound (ties count for every tied term)
+ *   unique max - the only term equal to the bound
+ *   can cut    - the node was pruned and this term alone would have pruned it
+ *   sole cut   - the only term that could prune it, so the node would be expanded without it
+ * A term that is never a unique max and never a sole cut can be dropped without changing
+ * the node count: its table only repeats what the others say. Two terms that always agree
+ * are both flagged, so drop one of them and profile again. The terms mirror the two
+ * heuristic methods and are checked against their result on every node.
+ * Only face-turn searches are profiled (not cost models), and only the plain phase-2 IDA*,
+ * not FringePhase2Search. Each solver has its own profiler; add() merges them for a corpus.
+ * Benchmarks "heuristics" mode prints the corpus report.
+ */
+public final class HeuristicProfiler {
+
+    public static final boolean ENABLED = Boolean.getBoolean("heuristic.profile");
+
+    public static final String[] PHASE1_TERMS = {"coSlice", "eoSlice"};
+    public static final String[] PHASE2_TERMS = {"cp", "cpUdSliceParity", "cpUdParity", "udEp", "uEdge", "dEdge"};
+
+    private static final class Phase {
+        long nodes, cutoffs, tied;
+        final long[] max, uniqueMax, canCut, soleCut;
+
+        Phase(int terms) {
+            max = new long[terms];
+            uniqueMax = new long[terms];
+            canCut = new long[terms];
+            soleCut = new long[terms];
+        }
+
+        void add(Phase o) {
+            nodes += o.nodes;
+            cutoffs += o.cutoffs;
+            tied += o.tied;
+            for (int i = 0; i < max.length; i++) {
+                max[i] += o.max[i];
+                uniqueMax[i] += o.uniqueMax[i];
+                canCut[i] += o.canCut[i];
+                soleCut[i] += o.soleCut[i];
+            }
+        }
+    }
+
+    private final Phase phase1 = new Phase(PHASE1_TERMS.length);
+    private final Phase phase2 = new Phase(PHASE2_TERMS.length);
+    private final int[] terms = new int[PHASE2_TERMS.length];
+
+    // h = heuristicPhase1Coord(co, eo, sl); the node is pruned when g + w * h > limit (weights in 1/16)
+    void phase1(int co, int eo, int sl, int h, int g, int limit, int weight16) {
+        terms[0] = Math.max(LightPruningTables.coSlicePrun[co * LightPruningTables.N_SLICE + sl], 0);
+        terms[1] = Math.max(LightPruningTables.eoSlicePrun[eo * LightPruningTables.N_SLICE + sl], 0);
+        count(phase1, PHASE1_TERMS.length, h, g, limit, weight16);
+    }
+
+    // h = heuristicPhase2Coord(cp, sl, udEp, ue, de)
+    void phase2(int cp, int sl, int udEp, int ue, int de, int h, int g, int limit, int weight16) {
+        int parity = LightPruningTables.permParityFromCoord(udEp) & 1;
+        terms[0] = Math.max(LightPruningTables.cpPrunP2[cp], 0);
+        terms[1] = Math.max(LightPruningTables.cpUdSlicePrunP2[((cp * LightPruningTables.N_SLICE) + sl) * 2 + parity], 0);
+        terms[2] = Math.max(LightPruningTables.cpUdParityPrun[cp * 2 + parity], 0);
+        terms[3] = Math.max(LightPruningTables.udPrunP2[udEp], 0);
+        terms[4] = Math.max(LightPruningTables.uEdgePrun[ue], 0);
+        terms[5] = Math.max(LightPruningTables.dEdgePrun[de], 0);
+        count(phase2, PHASE2_TERMS.length, h, g, limit, weight16);
+    }
+
+    private void count(Phase ph, int n, int h, int g, int limit, int weight16) {
+        int atMax = 0, cutters = 0, lastMax = -1, lastCutter = -1, best = 0;
+        for (int i = 0; i < n; i++) best = Math.max(best, terms[i]);
+        if (best != h) throw new IllegalStateException("HeuristicProfiler terms give " + best + ", heuristic gave " + h);
+        boolean cut = g * 16 + weight16 * h > limit * 16;
+        ph.nodes++;
+        if (cut) ph.cutoffs++;
+        for (int i = 0; i < n; i++) {
+            if (terms[i] == h) {
+                ph.max[i]++;
+                atMax++;
+                lastMax = i;
+            }
+            if (cut && g * 16 + weight16 * terms[i] > limit * 16) {
+                ph.canCut[i]++;
+                cutters++;
+                lastCutter = i;
+            }
+        }
+        if (atMax == 1) ph.uniqueMax[lastMax]++;
+        else ph.tied++;
+        if (cutters == 1) ph.soleCut[lastCutter]++;
+    }
+
+    public synchronized void add(HeuristicProfiler other) {
+        synchronized (other) {
+            phase1.add(other.phase1);
+            phase2.add(other.phase2);
+        }
+    }
+
+    public synchronized String report() {
+        StringBuilder sb = new StringBuilder();
+        report(sb, "phase 1", phase1, PHASE1_TERMS, new int[] {
+                LightPruningTables.coSlicePrun.length, LightPruningTables.eoSlicePrun.length});
+        report(sb, "phase 2", phase2, PHASE2_TERMS, new int[] {
+                LightPruningTables.cpPrunP2.length, LightPruningTables.cpUdSlicePrunP2.length,
+                LightPruningTables.cpUdParityPrun.length, LightPruningTables.udPrunP2.length,
+                LightPruningTables.uEdgePrun.length, LightPruningTables.dEdgePrun.length});
+        return sb.toString();
+    }
+
+    private static void report(StringBuilder sb, String title, Phase ph, String[] names, int[] bytes) {
+        sb.append(String.format(Locale.ROOT, "%s: %d nodes, %d cut off (%.1f%%), bound tied between terms at %.1f%%%n",
+                title, ph.nodes, ph.cutoffs, pct(ph.cutoffs, ph.nodes), pct(ph.tied, ph.nodes)));
+        sb.append(String.format("  %-16s %10s %9s %11s %9s %9s%n", "term", "bytes", "max", "unique max", "can cut", "sole cut"));
+        for (int i = 0; i < names.length; i++) {
+            sb.append(String.format(Locale.ROOT, "  %-16s %10d %8.2f%% %10.2f%% %8.2f%% %8.2f%%%s%n", names[i], bytes[i],
+                    pct(ph.max[i], ph.nodes), pct(ph.uniqueMax[i], ph.nodes), pct(ph.canCut[i], ph.cutoffs),
+                    pct(ph.soleCut[i], ph.cutoffs),
+                    ph.nodes > 0 && ph.uniqueMax[i] == 0 && ph.soleCut[i] == 0 ? "  never decisive" : ""));
+        }
+    }
+
+    private static double pct(long part, long whole) {
+        return whole == 0 ? 0 : 100.0 * part / whole;
+    }
+}
@@ -0,0 +1,71 @@
+package rubikscube;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-memory log-linear histogram of non-negative longs (HdrHistogram layout, two
+ * significant digits). Values below 128 get one bucket each. Above that, every power of
+ * two is split into 64 buckets, so a percentile is within 1/64 (about 1.6%) of the
+ * recorded value. The buckets reach 2^40, which is 12 days in microseconds, in about 18 KB.
+ * Recording is lock-free: one AtomicLongArray increment plus CAS loops for min and max.
+ * Readers see a consistent count only after recording has stopped, which is how the
+ * batch summaries use it.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BITS = 7;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int HALF = SUB_COUNT / 2;
+    private static final int MAX_SHIFT = 40 - SUB_BITS;
+    public static final long MAX_VALUE = (1L << 40) - 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(SUB_COUNT + MAX_SHIFT * HALF);
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong max = new AtomicLong(-1);
+
+    // Values above MAX_VALUE land in the last bucket; min/max/mean keep the exact value
+    public void record(long value) {
+        if (value < 0) value = 0;
+        counts.incrementAndGet(index(Math.min(value, MAX_VALUE)));
+        total.incrementAndGet();
+        sum.addAndGet(value);
+        long m;
+        while (value < (m = min.get()) && !min.compareAndSet(m, value)) { }
+        while (value > (m = max.get()) && !max.compareAndSet(m, value)) { }
+    }
+
+    private static int index(long v) {
+        if (v < SUB_COUNT) return (int) v;
+        int shift = 63 - Long.numberOfLeadingZeros(v) - (SUB_BITS - 1);
+        return SUB_COUNT + (shift - 1) * HALF + (int) (v >>> shift) - HALF;
+    }
+
+    // Largest value that falls in bucket i
+    private static long highestInBucket(int i) {
+        if (i < SUB_COUNT) return i;
+        int shift = (i - SUB_COUNT) / HALF + 1;
+        long lead = (i - SUB_COUNT) % HALF + HALF;
+        return ((lead + 1) << shift) - 1;
+    }
+
+    public long getCount() { return total.get(); }
+    public long getMin() { return total.get() == 0 ? 0 : min.get(); }
+    public long getMax() { return Math.max(max.get(), 0); }
+    public double getMean() { return total.get() == 0 ? 0 : (double) sum.get() / total.get(); }
+
+    // Nearest-rank percentile (0 < p <= 100), reported as the top of its bucket but never above the max
+    public long valueAtPercentile(double p) {
+        long n = total.get();
+        if (n == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(p / 100.0 * n));
+        long seen = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= rank) return Math.min(highestInBucket(i), getMax());
+        }
+        return getMax();
+    }
+}
@@ -27,18 +27,26 @@ public class LightPruningTables {
     public static synchronized void buildAllBlocking() {
         if (initialized) return;
         MoveTables.init();
-        buildCoSlice();
-        buildEoSlice();
-        buildCpP2();
-        buildUdP2();
-        buildCpUdParity();
-        buildCpSliceP2();
-        buildCpUdSliceP2();
-        buildUEdge();
-        buildDEdge();
+        build("coSlicePrun", coSlicePrun, LightPruningTables::buildCoSlice);
+        build("eoSlicePrun", eoSlicePrun, LightPruningTables::buildEoSlice);
+        build("cpPrunP2", cpPrunP2, LightPruningTables::buildCpP2);
+        build("udPrunP2", udPrunP2, LightPruningTables::buildUdP2);
+        build("cpUdParityPrun", cpUdParityPrun, LightPruningTables::buildCpUdParity);
+        build("cpSlicePrunP2", cpSlicePrunP2, LightPruningTables::buildCpSliceP2);
+        build("cpUdSlicePrunP2", cpUdSlicePrunP2, LightPruningTables::buildCpUdSliceP2);
+        build("uEdgePrun", uEdgePrun, LightPruningTables::buildUEdge);
+        build("dEdgePrun", dEdgePrun, LightPruningTables::buildDEdge);
         initialized = true;
     }
 
+    // One table build, reported as a SolverEvents.TableBuild when a flight recording is on
+    private static void build(String name, byte[] table, Runnable builder) {
+        SolverEvents.TableBuild ev = new SolverEvents.TableBuild();
+        ev.begin();
+        builder.run();
+        SolverEvents.tableBuilt(ev, name, table.length, table.length);
+    }
+
     public static boolean isInitialized() { return initialized; }
 
     private static int coSliceIdx(int co, int sl) { return co * N_SLICE + sl; }
@@ -0,0 +1,66 @@
+package rubikscube;
+
+import java.util.Arrays;
+
+// Per-move cost used by TwoPhaseIDA instead of counting face turns.
+// Pruning tables are rebuilt under the same costs (CostPruningTables) so they stay admissible.
+public final class MoveCostModel {
+
+    // Face-turn metric: every move costs 1 (the solver's native metric)
+    public static final MoveCostModel FTM = uniform(1, 1, 1);
+    // Quarter-turn metric: half turns cost 2
+    public static final MoveCostModel QTM = uniform(1, 2, 1);
+    // What CompactMoveEncoder emits: X -> X, X2 -> XX, X' -> XXX
+    public static final MoveCostModel COMPACT = uniform(1, 2, 3);
+
+    // cost[move][power], power 1..3
+    private final int[][] cost = new int[6][4];
+    private final int minCost;
+    private final int maxCost;
+    private CostPruningTables tables;
+
+    public MoveCostModel(int[][] costs) {
+        if (costs.length != 6) throw new IllegalArgumentException("Expected costs for 6 faces");
+        int min = Integer.MAX_VALUE, max = 0;
+        for (int m = 0; m < 6; m++) {
+            for (int p = 1; p <= 3; p++) {
+                int c = costs[m][p - 1];
+                if (c < 1 || c > 15) throw new IllegalArgumentException("Move cost out of range [1, 15]: " + c);
+                cost[m][p] = c;
+                min = Math.min(min, c);
+                max = Math.max(max, c);
+            }
+        }
+        minCost = min;
+        maxCost = max;
+    }
+
+    public static MoveCostModel uniform(int quarter, int half, int inverse) {
+        int[][] c = new int[6][];
+        for (int m = 0; m < 6; m++) c[m] = new int[] { quarter, half, inverse };
+        return new MoveCostModel(c);
+    }
+
+    public int cost(int move, int power) { return cost[move][power]; }
+    public int minCost() { return minCost; }
+    public int maxCost() { return maxCost; }
+
+    public int cost(int[] moves, int[] powers, int length) {
+        int total = 0;
+        for (int i = 0; i < length; i++) total += cost[moves[i]][powers[i]];
+        return total;
+    }
+
+    synchronized CostPruningTables tables() {
+        if (tables == null) tables = new CostPruningTables(this);
+        return tables;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof MoveCostModel && Arrays.deepEquals(cost, ((MoveCostModel) o).cost);
+    }
+
+    @Override
+    public int hashCode() { return Arrays.deepHashCode(cost); }
+}
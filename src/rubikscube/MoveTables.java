@@ -12,6 +12,12 @@ public class MoveTables {
     public static int[][][] uEdgeMove;
     public static int[][][] dEdgeMove;
 
+    // Full-move tables for the U/D/slice edge position coordinates (CubieCube.getEdge4PosPermCoord)
+    public static final int N_EDGE4 = 11880;
+    public static int[][][] uEdge4Move;
+    public static int[][][] dEdge4Move;
+    public static int[][][] sliceEdge4Move;
+
     private static volatile boolean initialized = false;
 
     public static synchronized void init() {
@@ -24,52 +30,111 @@ public class MoveTables {
         udEpMove = new int[6][4][PruningTables.N_UD_EP];
         uEdgeMove = new int[6][4][24];
         dEdgeMove = new int[6][4][24];
+        uEdge4Move = new int[6][4][N_EDGE4];
+        dEdge4Move = new int[6][4][N_EDGE4];
+        sliceEdge4Move = new int[6][4][N_EDGE4];
 
-        for (int move = 0; move < 6; move++) {
-            for (int p = 1; p <= 3; p++) {
-                for (int c = 0; c < PruningTables.N_CO; c++) {
-                    CubieCube cc = CubieCube.fromCornerOriCoord(c);
-                    cc.applyMove(move, p);
-                    coMove[move][p][c] = cc.getCornerOriCoord();
-                }
-                for (int e = 0; e < PruningTables.N_EO; e++) {
-                    CubieCube cc = CubieCube.fromEdgeOriCoord(e);
-                    cc.applyMove(move, p);
-                    eoMove[move][p][e] = cc.getEdgeOriCoord();
-                }
-                for (int s = 0; s < PruningTables.N_SLICE; s++) {
-                    CubieCube cc = CubieCube.fromUDSliceCoord(s);
-                    cc.applyMove(move, p);
-                    sliceMove[move][p][s] = cc.getUDSliceCoord();
-                }
-                for (int cp = 0; cp < PruningTables.N_CP; cp++) {
-                    CubieCube cc = CubieCube.fromCornerPermCoord(cp);
-                    cc.applyMove(move, p);
-                    cpMove[move][p][cp] = cc.getCornerPermCoord();
-                }
-                for (int ud = 0; ud < PruningTables.N_UD_EP; ud++) {
-                    CubieCube cc = CubieCube.fromUDEdgePermCoord(ud);
-                    cc.applyMove(move, p);
-                    udEpMove[move][p][ud] = cc.getUDEdgePermCoord();
-                }
-                for (int ue = 0; ue < 24; ue++) {
-                    CubieCube cc = CubieCube.fromUEdgePermCoord(ue);
-                    cc.applyMove(move, p);
-                    uEdgeMove[move][p][ue] = cc.getUEdgePermCoord();
-                }
-                for (int de = 0; de < 24; de++) {
-                    CubieCube cc = CubieCube.fromDEdgePermCoord(de);
-                    cc.applyMove(move, p);
-                    dEdgeMove[move][p][de] = cc.getDEdgePermCoord();
-                }
+        // each coordinate is decoded once; the 18 moves are applied to a scratch copy
+        CubieCube scratch = new CubieCube();
+        SolverEvents.TableBuild ev = begin();
+        for (int c = 0; c < PruningTables.N_CO; c++) {
+            CubieCube base = CubieCube.fromCornerOriCoord(c);
+            for (int move = 0; move < 6; move++) for (int p = 1; p <= 3; p++) {
+                scratch.copyFrom(base);
+                scratch.applyMove(move, p);
+                coMove[move][p][c] = scratch.getCornerOriCoord();
+            }
+        }
+        built(ev, "coMove", PruningTables.N_CO);
+        ev = begin();
+        for (int e = 0; e < PruningTables.N_EO; e++) {
+            CubieCube base = CubieCube.fromEdgeOriCoord(e);
+            for (int move = 0; move < 6; move++) for (int p = 1; p <= 3; p++) {
+                scratch.copyFrom(base);
+                scratch.applyMove(move, p);
+                eoMove[move][p][e] = scratch.getEdgeOriCoord();
+            }
+        }
+        built(ev, "eoMove", PruningTables.N_EO);
+        ev = begin();
+        for (int sl = 0; sl < PruningTables.N_SLICE; sl++) {
+            CubieCube base = CubieCube.fromUDSliceCoord(sl);
+            for (int move = 0; move < 6; move++) for (int p = 1; p <= 3; p++) {
+                scratch.copyFrom(base);
+                scratch.applyMove(move, p);
+                sliceMove[move][p][sl] = scratch.getUDSliceCoord();
+            }
+        }
+        built(ev, "sliceMove", PruningTables.N_SLICE);
+        ev = begin();
+        for (int cp = 0; cp < PruningTables.N_CP; cp++) {
+            CubieCube base = CubieCube.fromCornerPermCoord(cp);
+            for (int move = 0; move < 6; move++) for (int p = 1; p <= 3; p++) {
+                scratch.copyFrom(base);
+                scratch.applyMove(move, p);
+                cpMove[move][p][cp] = scratch.getCornerPermCoord();
+            }
+        }
+        built(ev, "cpMove", PruningTables.N_CP);
+        ev = begin();
+        for (int ud = 0; ud < PruningTables.N_UD_EP; ud++) {
+            CubieCube base = CubieCube.fromUDEdgePermCoord(ud);
+            for (int move = 0; move < 6; move++) for (int p = 1; p <= 3; p++) {
+                scratch.copyFrom(base);
+                scratch.applyMove(move, p);
+                udEpMove[move][p][ud] = scratch.getUDEdgePermCoord();
+            }
+        }
+        built(ev, "udEpMove", PruningTables.N_UD_EP);
+        ev = begin();
+        for (int ue = 0; ue < 24; ue++) {
+            CubieCube baseU = CubieCube.fromUEdgePermCoord(ue);
+            CubieCube baseD = CubieCube.fromDEdgePermCoord(ue);
+            for (int move = 0; move < 6; move++) for (int p = 1; p <= 3; p++) {
+                scratch.copyFrom(baseU);
+                scratch.applyMove(move, p);
+                uEdgeMove[move][p][ue] = scratch.getUEdgePermCoord();
+                scratch.copyFrom(baseD);
+                scratch.applyMove(move, p);
+                dEdgeMove[move][p][ue] = scratch.getDEdgePermCoord();
+            }
+        }
+        built(ev, "uEdgeMove+dEdgeMove", 2 * 24);
+        ev = begin();
+        for (int e4 = 0; e4 < N_EDGE4; e4++) {
+            CubieCube baseU = CubieCube.fromEdge4PosPermCoord(0, e4);
+            CubieCube baseD = CubieCube.fromEdge4PosPermCoord(4, e4);
+            CubieCube baseS = CubieCube.fromEdge4PosPermCoord(8, e4);
+            for (int move = 0; move < 6; move++) for (int p = 1; p <= 3; p++) {
+                scratch.copyFrom(baseU);
+                scratch.applyMove(move, p);
+                uEdge4Move[move][p][e4] = scratch.getEdge4PosPermCoord(0);
+                scratch.copyFrom(baseD);
+                scratch.applyMove(move, p);
+                dEdge4Move[move][p][e4] = scratch.getEdge4PosPermCoord(4);
+                scratch.copyFrom(baseS);
+                scratch.applyMove(move, p);
+                sliceEdge4Move[move][p][e4] = scratch.getEdge4PosPermCoord(8);
             }
         }
+        built(ev, "uEdge4Move+dEdge4Move+sliceEdge4Move", 3 * N_EDGE4);
 
         initialized = true;
     }
 
     public static boolean isInitialized() { return initialized; }
 
+    private static SolverEvents.TableBuild begin() {
+        SolverEvents.TableBuild ev = new SolverEvents.TableBuild();
+        ev.begin();
+        return ev;
+    }
+
+    // n coordinates, each with an int per move and power ([6][4][n], power 0 unused)
+    private static void built(SolverEvents.TableBuild ev, String table, int n) {
+        SolverEvents.tableBuilt(ev, table, 18L * n, 24L * n * Integer.BYTES);
+    }
+
     public static int applyCO(int move, int power, int coord) {
         return coMove[move][power][coord];
     }
@@ -91,4 +156,13 @@ public class MoveTables {
     public static int applyDEdge(int move, int power, int coord) {
         return dEdgeMove[move][power][coord];
     }
+    public static int applyUEdge4(int move, int power, int coord) {
+        return uEdge4Move[move][power][coord];
+    }
+    public static int applyDEdge4(int move, int power, int coord) {
+        return dEdge4Move[move][power][coord];
+    }
+    public static int applySliceEdge4(int move, int power, int coord) {
+        return sliceEdge4Move[move][power][coord];
+    }
 }
@@ -45,4 +45,54 @@ public class Moves {
             default: return MOVE_NAMES[move] + "'";
         }
     }
+
+    // Parses "U R2 F' ..." or CompactMoveEncoder notation ("UUURR", runs of a face merged,
+    // power = run length mod 4) into mv/pw without allocating; returns the move count.
+    // More moves than mv/pw hold is an IllegalArgumentException like any other bad input.
+    public static int parseSequence(CharSequence seq, int[] mv, int[] pw) {
+        int capacity = Math.min(mv.length, pw.length);
+        int len = seq.length();
+        int start = 0, end = len;
+        while (start < end && Character.isWhitespace(seq.charAt(start))) start++;
+        while (end > start && Character.isWhitespace(seq.charAt(end - 1))) end--;
+        boolean compact = true;
+        for (int i = start; i < end && compact; i++) compact = faceIndex(seq.charAt(i)) >= 0;
+        int n = 0;
+        int i = 0;
+        while (i < len) {
+            char c = seq.charAt(i);
+            if (Character.isWhitespace(c)) { i++; continue; }
+            int move = faceIndex(c);
+            if (move < 0) throw new IllegalArgumentException("Bad move at " + i + ": " + c);
+            int power = 1;
+            i++;
+            if (compact) {
+                while (i < len && faceIndex(seq.charAt(i)) == move) { power++; i++; }
+                power &= 3;
+                if (power == 0) continue;
+            } else if (i < len) {
+                char suffix = seq.charAt(i);
+                if (suffix == '2') { power = 2; i++; }
+                else if (suffix == '\'' || suffix == '3') { power = 3; i++; }
+                else if (!Character.isWhitespace(suffix)) throw new IllegalArgumentException("Bad move at " + (i - 1) + ": " + c + suffix);
+            }
+            if (n == capacity) throw new IllegalArgumentException("More than " + capacity + " moves");
+            mv[n] = move;
+            pw[n] = power;
+            n++;
+        }
+        return n;
+    }
+
+    private static int faceIndex(char c) {
+        return switch (c) {
+            case 'U', 'u' -> U;
+            case 'R', 'r' -> R;
+            case 'F', 'f' -> F;
+            case 'D', 'd' -> D;
+            case 'L', 'l' -> L;
+            case 'B', 'b' -> B;
+            default -> -1;
+        };
+    }
 }
@@ -21,14 +21,7 @@ public class NetToCubie {
         FaceCube fc = new FaceCube(f);
         CubieCube cc = new CubieCube();
 
-        for (int i = 0; i < 8; i++) {
-            cc.cp[i] = fc.getCornerPerm(i);
-            cc.co[i] = fc.getCornerOri(i);
-        }
-        for (int i = 0; i < 12; i++) {
-            cc.ep[i] = fc.getEdgePerm(i);
-            cc.eo[i] = fc.getEdgeOri(i);
-        }
+        fc.toCubieCube(cc);
 
         validate(cc);
         if (DEBUG) {
@@ -39,57 +32,46 @@ public class NetToCubie {
     }
 
     private static void validate(CubieCube cc) {
-        boolean[] cornerSeen = new boolean[8];
-        boolean[] edgeSeen = new boolean[12];
+        String reason = invalidReason(cc);
+        if (reason != null) {
+            debugPrintState(cc);
+            throw new IllegalArgumentException(reason);
+        }
+    }
+
+    // Why cc is not a reachable cube state, or null if it is
+    static String invalidReason(CubieCube cc) {
+        int cornerSeen = 0;
+        int edgeSeen = 0;
 
         for (byte c : cc.cp) {
-            if (c < 0 || c >= 8 || cornerSeen[c]) {
-                debugPrintState(cc);
-                throw new IllegalArgumentException("Invalid corner permutation");
-            }
-            cornerSeen[c] = true;
+            if (c < 0 || c >= 8 || (cornerSeen & (1 << c)) != 0) return "Invalid corner permutation";
+            cornerSeen |= 1 << c;
         }
         for (byte e : cc.ep) {
-            if (e < 0 || e >= 12 || edgeSeen[e]) {
-                debugPrintState(cc);
-                throw new IllegalArgumentException("Invalid edge permutation");
-            }
-            edgeSeen[e] = true;
+            if (e < 0 || e >= 12 || (edgeSeen & (1 << e)) != 0) return "Invalid edge permutation";
+            edgeSeen |= 1 << e;
         }
 
         int coSum = 0;
-        for (byte co : cc.co) coSum = (coSum + co) % 3;
-        if (coSum != 0) {
-            debugPrintState(cc);
-            throw new IllegalArgumentException("Corner twist parity violated");
-        }
+        for (byte co : cc.co) coSum += co;
+        if (coSum % 3 != 0) return "Corner twist parity violated";
 
         int eoSum = 0;
         for (byte eo : cc.eo) eoSum ^= eo;
-        if (eoSum != 0) {
-            debugPrintState(cc);
-            throw new IllegalArgumentException("Edge flip parity violated");
-        }
+        if (eoSum != 0) return "Edge flip parity violated";
 
-        if ((permParity(cc.cp) ^ permParity(cc.ep)) != 0) {
-            debugPrintState(cc);
-            throw new IllegalArgumentException("Corner/edge permutation parity mismatch");
-        }
+        if ((permParity(cc.cp) ^ permParity(cc.ep)) != 0) return "Corner/edge permutation parity mismatch";
+        return null;
     }
 
+    // Parity by counting inversions; permutations here have at most 12 elements
     private static int permParity(byte[] perm) {
         int parity = 0;
-        boolean[] seen = new boolean[perm.length];
         for (int i = 0; i < perm.length; i++) {
-            if (seen[i]) continue;
-            int j = i;
-            int cycle = 0;
-            while (!seen[j]) {
-                seen[j] = true;
-                j = perm[j];
-                cycle++;
+            for (int j = i + 1; j < perm.length; j++) {
+                if (perm[i] > perm[j]) parity ^= 1;
             }
-            if (cycle > 0) parity ^= (cycle - 1) & 1;
         }
         return parity;
     }
@@ -0,0 +1,215 @@
+package rubikscube;
+
+/**
+ * Cube state in two longs: corners as 8 slots of 5 bits (3-bit cubie, 2-bit twist), edges
+ * as 12 slots of 5 bits (4-bit cubie, 1-bit flip), slot i at bits 5*i. Same replacement
+ * convention as CubieCube: slot i holds the cubie sitting at position i.
+ * Each of the 18 moves rewrites only the four corner and four edge slots it touches,
+ * from precomputed source slots and twists, so a move is a handful of shifts and masks.
+ */
+public final class PackedCube {
+
+    private static final long SLOT = 31L;
+    private static final long SOLVED_CORNERS;
+    private static final long SOLVED_EDGES;
+
+    // per move index (move * 3 + power - 1): the 4 touched slots, where each takes its cubie from, and the twist/flip added
+    private static final int[][] CORNER_TARGET = new int[18][4];
+    private static final int[][] CORNER_SOURCE = new int[18][4];
+    private static final int[][] CORNER_TWIST = new int[18][4];
+    private static final long[] CORNER_KEEP = new long[18];
+    private static final int[][] EDGE_TARGET = new int[18][4];
+    private static final int[][] EDGE_SOURCE = new int[18][4];
+    private static final int[][] EDGE_FLIP = new int[18][4];
+    private static final long[] EDGE_KEEP = new long[18];
+    // the same as bit shifts, interleaved: {source shift, target shift, twist} x 4
+    private static final int[][] CORNER_OPS = new int[18][12];
+    private static final int[][] EDGE_OPS = new int[18][12];
+
+    // slot value after adding a twist: ADD_TWIST[twist][cubie << 2 | ori]
+    private static final int[][] ADD_TWIST = new int[3][32];
+    private static final byte[] MOD3 = {0, 1, 2, 0, 1, 2};
+
+    public long corners;
+    public long edges;
+
+    static {
+        long c = 0, e = 0;
+        for (int i = 0; i < 8; i++) c |= (long) (i << 2) << (5 * i);
+        for (int i = 0; i < 12; i++) e |= (long) (i << 1) << (5 * i);
+        SOLVED_CORNERS = c;
+        SOLVED_EDGES = e;
+
+        for (int t = 0; t < 3; t++) {
+            for (int v = 0; v < 32; v++) ADD_TWIST[t][v] = (v & ~3) | ((v & 3) + t) % 3;
+        }
+
+        // Derive the move tables from CubieCube's own move definitions
+        for (int move = 0; move < 6; move++) {
+            for (int p = 1; p <= 3; p++) {
+                int m = move * 3 + p - 1;
+                CubieCube probe = new CubieCube();
+                for (int k = 0; k < p; k++) probe.move(move);
+                int nc = 0, ne = 0;
+                long ck = -1L, ek = -1L;
+                for (int i = 0; i < 8; i++) {
+                    if (probe.cp[i] == i && probe.co[i] == 0) continue;
+                    CORNER_TARGET[m][nc] = i;
+                    CORNER_SOURCE[m][nc] = probe.cp[i];
+                    CORNER_TWIST[m][nc] = probe.co[i];
+                    ck &= ~(SLOT << (5 * i));
+                    nc++;
+                }
+                for (int i = 0; i < 12; i++) {
+                    if (probe.ep[i] == i && probe.eo[i] == 0) continue;
+                    EDGE_TARGET[m][ne] = i;
+                    EDGE_SOURCE[m][ne] = probe.ep[i];
+                    EDGE_FLIP[m][ne] = probe.eo[i];
+                    ek &= ~(SLOT << (5 * i));
+                    ne++;
+                }
+                if (nc != 4 || ne != 4) throw new IllegalStateException("Move " + m + " does not touch 4 corners and 4 edges");
+                CORNER_KEEP[m] = ck;
+                EDGE_KEEP[m] = ek;
+                for (int k = 0; k < 4; k++) {
+                    CORNER_OPS[m][3 * k] = 5 * CORNER_SOURCE[m][k];
+                    CORNER_OPS[m][3 * k + 1] = 5 * CORNER_TARGET[m][k];
+                    CORNER_OPS[m][3 * k + 2] = CORNER_TWIST[m][k];
+                    EDGE_OPS[m][3 * k] = 5 * EDGE_SOURCE[m][k];
+                    EDGE_OPS[m][3 * k + 1] = 5 * EDGE_TARGET[m][k];
+                    EDGE_OPS[m][3 * k + 2] = EDGE_FLIP[m][k];
+                }
+            }
+        }
+    }
+
+    public PackedCube() {
+        corners = SOLVED_CORNERS;
+        edges = SOLVED_EDGES;
+    }
+
+    public PackedCube(long corners, long edges) {
+        this.corners = corners;
+        this.edges = edges;
+    }
+
+    public PackedCube(PackedCube c) {
+        this.corners = c.corners;
+        this.edges = c.edges;
+    }
+
+    public static PackedCube from(CubieCube c) {
+        PackedCube p = new PackedCube();
+        p.set(c);
+        return p;
+    }
+
+    public CubieCube toCubieCube() {
+        CubieCube c = new CubieCube();
+        for (int i = 0; i < 8; i++) {
+            int v = (int) (corners >>> (5 * i)) & 31;
+            c.cp[i] = (byte) (v >> 2);
+            c.co[i] = (byte) (v & 3);
+        }
+        for (int i = 0; i < 12; i++) {
+            int v = (int) (edges >>> (5 * i)) & 31;
+            c.ep[i] = (byte) (v >> 1);
+            c.eo[i] = (byte) (v & 1);
+        }
+        return c;
+    }
+
+    public void set(PackedCube c) {
+        corners = c.corners;
+        edges = c.edges;
+    }
+
+    public void set(CubieCube c) {
+        long cs = 0, es = 0;
+        for (int i = 0; i < 8; i++) cs |= (long) (c.cp[i] << 2 | c.co[i]) << (5 * i);
+        for (int i = 0; i < 12; i++) es |= (long) (c.ep[i] << 1 | c.eo[i]) << (5 * i);
+        corners = cs;
+        edges = es;
+    }
+
+    public void applyMove(int move, int power) {
+        int m = move * 3 + power - 1;
+        long c = corners, nc = c & CORNER_KEEP[m];
+        int[] co = CORNER_OPS[m];
+        for (int k = 0; k < 12; k += 3) {
+            nc |= (long) ADD_TWIST[co[k + 2]][(int) (c >>> co[k]) & 31] << co[k + 1];
+        }
+        long e = edges, ne = e & EDGE_KEEP[m];
+        int[] eo = EDGE_OPS[m];
+        for (int k = 0; k < 12; k += 3) {
+            ne |= ((e >>> eo[k]) & 31 ^ eo[k + 2]) << eo[k + 1];
+        }
+        corners = nc;
+        edges = ne;
+    }
+
+    // CubieCube.applyMove: the same tables on the byte arrays, touched slots only
+    static void applyMove(CubieCube c, int move, int power) {
+        int m = move * 3 + power - 1;
+        byte[] cp = c.cp, co = c.co, ep = c.ep, eo = c.eo;
+        int[] ct = CORNER_TARGET[m], cs = CORNER_SOURCE[m], tw = CORNER_TWIST[m];
+        byte p0 = cp[cs[0]], p1 = cp[cs[1]], p2 = cp[cs[2]], p3 = cp[cs[3]];
+        byte o0 = co[cs[0]], o1 = co[cs[1]], o2 = co[cs[2]], o3 = co[cs[3]];
+        cp[ct[0]] = p0; co[ct[0]] = MOD3[o0 + tw[0]];
+        cp[ct[1]] = p1; co[ct[1]] = MOD3[o1 + tw[1]];
+        cp[ct[2]] = p2; co[ct[2]] = MOD3[o2 + tw[2]];
+        cp[ct[3]] = p3; co[ct[3]] = MOD3[o3 + tw[3]];
+        int[] et = EDGE_TARGET[m], es = EDGE_SOURCE[m], fl = EDGE_FLIP[m];
+        p0 = ep[es[0]]; p1 = ep[es[1]]; p2 = ep[es[2]]; p3 = ep[es[3]];
+        o0 = eo[es[0]]; o1 = eo[es[1]]; o2 = eo[es[2]]; o3 = eo[es[3]];
+        ep[et[0]] = p0; eo[et[0]] = (byte) (o0 ^ fl[0]);
+        ep[et[1]] = p1; eo[et[1]] = (byte) (o1 ^ fl[1]);
+        ep[et[2]] = p2; eo[et[2]] = (byte) (o2 ^ fl[2]);
+        ep[et[3]] = p3; eo[et[3]] = (byte) (o3 ^ fl[3]);
+    }
+
+    // this = this * b (apply b after this), the same product CubieCube moves use
+    public void multiply(PackedCube b) {
+        long nc = 0, ne = 0;
+        for (int i = 0; i < 8; i++) {
+            int bv = (int) (b.corners >>> (5 * i)) & 31;
+            int av = (int) (corners >>> (5 * (bv >> 2))) & 31;
+            nc |= (long) ADD_TWIST[bv & 3][av] << (5 * i);
+        }
+        for (int i = 0; i < 12; i++) {
+            int bv = (int) (b.edges >>> (5 * i)) & 31;
+            int av = (int) (edges >>> (5 * (bv >> 1))) & 31;
+            ne |= (long) (av ^ (bv & 1)) << (5 * i);
+        }
+        corners = nc;
+        edges = ne;
+    }
+
+    public PackedCube inverse() {
+        long nc = 0, ne = 0;
+        for (int i = 0; i < 8; i++) {
+            int v = (int) (corners >>> (5 * i)) & 31;
+            int twist = (3 - (v & 3)) % 3;
+            nc |= (long) (i << 2 | twist) << (5 * (v >> 2));
+        }
+        for (int i = 0; i < 12; i++) {
+            int v = (int) (edges >>> (5 * i)) & 31;
+            ne |= (long) (i << 1 | (v & 1)) << (5 * (v >> 1));
+        }
+        return new PackedCube(nc, ne);
+    }
+
+    public boolean isSolved() {
+        return corners == SOLVED_CORNERS && edges == SOLVED_EDGES;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof PackedCube && ((PackedCube) o).corners == corners && ((PackedCube) o).edges == edges;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(corners * 0x9E3779B97F4A7C15L ^ edges);
+    }
+}
@@ -0,0 +1,56 @@
+package rubikscube;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Fixed-size table of phase-1 dead ends: "(co, eo, slice) reached after lastMove
+// has no phase-1 solution within k moves". Facts only depend on the coordinates,
+// so one table is shared by every solve and every thread.
+public final class Phase1TranspositionTable {
+
+    // entry layout: [key:35][remaining:8], 0 = empty slot
+    private static final int REMAINING_BITS = 8;
+    private static final long REMAINING_MASK = (1L << REMAINING_BITS) - 1;
+
+    private final AtomicLongArray slots;
+    private final int mask;
+
+    public Phase1TranspositionTable(int log2Size) {
+        if (log2Size < 4 || log2Size > 28) throw new IllegalArgumentException("log2Size out of range: " + log2Size);
+        slots = new AtomicLongArray(1 << log2Size);
+        mask = (1 << log2Size) - 1;
+    }
+
+    // co < 2^12, eo < 2^11, sl < 2^9, lastMove in [-1, 5] -> 35-bit key
+    private static long key(int co, int eo, int sl, int lastMove) {
+        return ((long) co << 23) | ((long) eo << 12) | ((long) sl << 3) | (lastMove + 1);
+    }
+
+    private int index(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 40) & mask;
+    }
+
+    // True when this node is already known to have no solution within `remaining` moves.
+    public boolean isDeadEnd(int co, int eo, int sl, int lastMove, int remaining) {
+        long k = key(co, eo, sl, lastMove);
+        long e = slots.get(index(k));
+        if (e == 0 || (e >>> REMAINING_BITS) != k) return false;
+        return (e & REMAINING_MASK) >= remaining;
+    }
+
+    // Replacement policy: an empty slot or a different key is always overwritten,
+    // the same key only when the new bound is deeper.
+    public void recordDeadEnd(int co, int eo, int sl, int lastMove, int remaining) {
+        long k = key(co, eo, sl, lastMove);
+        int i = index(k);
+        long e = slots.get(i);
+        if (e != 0 && (e >>> REMAINING_BITS) == k && (e & REMAINING_MASK) >= remaining) return;
+        slots.lazySet(i, (k << REMAINING_BITS) | (remaining & REMAINING_MASK));
+    }
+
+    public void clear() {
+        for (int i = 0; i < slots.length(); i++) slots.set(i, 0L);
+    }
+
+    public int capacity() { return slots.length(); }
+}
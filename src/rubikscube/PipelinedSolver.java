@@ -0,0 +1,193 @@
+package rubikscube;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Pipelined two-phase solve: one producer enumerates phase-1 endpoints into a bounded
+ * queue, a pool of workers runs phase 2 on each endpoint under a shared best-total bound.
+ * The first solution wins unless a settle time is given, in which case the shortest
+ * solution found within that time after the first one is returned.
+ */
+public class PipelinedSolver implements AutoCloseable {
+
+    private static final int MAX_DEPTH = 45;
+    private static final int SLICE_SOLVED = CubieCube.SLICE_SOLVED_COORD;
+
+    // Phase-1 endpoint: phase-2 coordinates plus the move prefix (move * 3 + power - 1)
+    static final class Endpoint {
+        final byte[] prefix;
+        final int length;
+        final int cp, sl, udEp, ue, de;
+
+        Endpoint(byte[] prefix, int length, int cp, int sl, int udEp, int ue, int de) {
+            this.prefix = prefix; this.length = length;
+            this.cp = cp; this.sl = sl; this.udEp = udEp; this.ue = ue; this.de = de;
+        }
+    }
+
+    // Queued after the last endpoint so idle workers can exit
+    private static final Endpoint END = new Endpoint(new byte[0], 0, 0, 0, 0, 0, 0);
+
+    private final int workers;
+    private final int queueCapacity;
+    private final long settleNanos;
+    private final ExecutorService pool;
+
+    public PipelinedSolver(int workers, int queueCapacity, long settleMillis) {
+        if (workers < 1) throw new IllegalArgumentException("workers must be >= 1");
+        if (queueCapacity < 1) throw new IllegalArgumentException("queueCapacity must be >= 1");
+        this.workers = workers;
+        this.queueCapacity = queueCapacity;
+        this.settleNanos = TimeUnit.MILLISECONDS.toNanos(settleMillis);
+        this.pool = Executors.newFixedThreadPool(workers + 1, r -> {
+            Thread t = new Thread(r, "pipelined-solver");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public String solve(CubieCube start) throws InterruptedException {
+        MoveTables.init();
+        LightPruningTables.buildAllBlocking();
+        if (start.isSolved()) return "";
+
+        CubieCube startCopy = new CubieCube(start);
+        BlockingQueue<Endpoint> queue = new ArrayBlockingQueue<>(queueCapacity);
+        AtomicInteger bestLength = new AtomicInteger(Integer.MAX_VALUE);
+        AtomicReference<String> best = new AtomicReference<>(null);
+        CountDownLatch firstFound = new CountDownLatch(1);
+        CountDownLatch workersDone = new CountDownLatch(workers);
+
+        List<Future<?>> tasks = new ArrayList<>();
+        tasks.add(pool.submit(() -> {
+            try {
+                new Producer(startCopy, queue, bestLength).run();
+            } catch (InterruptedException ignored) {
+                return;
+            }
+            for (int i = 0; i < workers; i++) {
+                try { queue.put(END); } catch (InterruptedException e) { return; }
+            }
+        }));
+        for (int w = 0; w < workers; w++) {
+            tasks.add(pool.submit(() -> {
+                TwoPhaseIDA ida = new TwoPhaseIDA();
+                try {
+                    while (!Thread.currentThread().isInterrupted()) {
+                        Endpoint ep = queue.take();
+                        if (ep == END) break;
+                        if (ep.length + TwoPhaseIDA.heuristicPhase2Coord(ep.cp, ep.sl, ep.udEp, ep.ue, ep.de)
+                                >= bestLength.get()) continue;
+                        String sol = ida.solvePhase2From(startCopy, ep.prefix, ep.length,
+                                ep.cp, ep.sl, ep.udEp, ep.ue, ep.de, bestLength::get);
+                        if (sol == null) continue;
+                        int len = ida.getPhase1Length() + ida.getPhase2Length();
+                        synchronized (best) {
+                            if (len < bestLength.get()) {
+                                bestLength.set(len);
+                                best.set(sol);
+                            }
+                        }
+                        firstFound.countDown();
+                    }
+                } catch (InterruptedException ignored) {
+                    // cancelled by the caller
+                } finally {
+                    workersDone.countDown();
+                }
+            }));
+        }
+
+        try {
+            // Either every endpoint up to the bound has been tried, or a solution arrived
+            while (workersDone.getCount() > 0 && !firstFound.await(10, TimeUnit.MILLISECONDS)) { }
+            if (firstFound.getCount() == 0 && settleNanos > 0) {
+                workersDone.await(settleNanos, TimeUnit.NANOSECONDS);
+            }
+        } finally {
+            for (Future<?> f : tasks) f.cancel(true);
+        }
+        String sol = best.get();
+        return sol == null ? "" : sol;
+    }
+
+    @Override
+    public void close() {
+        pool.shutdownNow();
+    }
+
+    // Phase-1 IDA* that reports every endpoint at exactly the current depth limit instead of stopping at the first.
+    private static final class Producer {
+        private final CubieCube start;
+        private final BlockingQueue<Endpoint> queue;
+        private final AtomicInteger bestLength;
+        private final int[] moves = new int[MAX_DEPTH];
+        private final int[] powers = new int[MAX_DEPTH];
+        private final CubieCube leafCube = new CubieCube();
+
+        Producer(CubieCube start, BlockingQueue<Endpoint> queue, AtomicInteger bestLength) {
+            this.start = start;
+            this.queue = queue;
+            this.bestLength = bestLength;
+        }
+
+        void run() throws InterruptedException {
+            int co = start.getCornerOriCoord();
+            int eo = start.getEdgeOriCoord();
+            int sl = start.getUDSliceCoord();
+            int cp = start.getCornerPermCoord();
+            int u4 = start.getEdge4PosPermCoord(0);
+            int d4 = start.getEdge4PosPermCoord(4);
+            int h1 = TwoPhaseIDA.heuristicPhase1Coord(co, eo, sl);
+            // a phase-1 prefix of length depth1 cannot beat a total of depth1 or less
+            for (int depth1 = h1; depth1 <= MAX_DEPTH && depth1 < bestLength.get(); depth1++) {
+                search(co, eo, sl, cp, u4, d4, 0, depth1, -1);
+            }
+        }
+
+        private void search(int co, int eo, int sl, int cp, int u4, int d4, int depth, int limit, int lastMove)
+                throws InterruptedException {
+            if (Thread.currentThread().isInterrupted()) throw new InterruptedException();
+            int h = TwoPhaseIDA.heuristicPhase1Coord(co, eo, sl);
+            if (depth + h > limit) return;
+            if (depth == limit) {
+                // endpoints ending in a phase-2 move were already reported one level shallower
+                if (depth == 0 || !isPhase2Move(moves[depth - 1], powers[depth - 1])) emit(depth, cp, u4, d4);
+                return;
+            }
+            if (limit >= bestLength.get()) return;
+
+            for (int move = 0; move < 6; move++) {
+                if (lastMove >= 0 && Moves.sameAxis(lastMove, move)) continue;
+                for (int p = 1; p <= 3; p++) {
+                    moves[depth] = move;
+                    powers[depth] = p;
+                    search(MoveTables.applyCO(move, p, co), MoveTables.applyEO(move, p, eo),
+                            MoveTables.applySlice(move, p, sl), MoveTables.applyCP(move, p, cp),
+                            MoveTables.applyUEdge4(move, p, u4), MoveTables.applyDEdge4(move, p, d4),
+                            depth + 1, limit, move);
+                }
+            }
+        }
+
+        private static boolean isPhase2Move(int move, int power) {
+            return move == Moves.U || move == Moves.D || power == 2;
+        }
+
+        private void emit(int length, int cp, int u4, int d4) throws InterruptedException {
+            leafCube.setUDEdgesFromEdge4Coords(u4, d4);
+            int ud = leafCube.getUDEdgePermCoord();
+            int ue = leafCube.getUEdgePermCoord();
+            int de = leafCube.getDEdgePermCoord();
+            // rejected here, before any allocation or queueing, when phase 2 cannot beat the best total
+            if (length + TwoPhaseIDA.heuristicPhase2Coord(cp, SLICE_SOLVED, ud, ue, de) >= bestLength.get()) return;
+            byte[] prefix = new byte[length];
+            for (int i = 0; i < length; i++) prefix[i] = (byte) (moves[i] * 3 + powers[i] - 1);
+            queue.put(new Endpoint(prefix, length, cp, SLICE_SOLVED, ud, ue, de));
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package rubikscube;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * End-to-end performance regression check for the default TwoPhaseIDA. The corpus is the
+ * 40 testcases plus -Dregress.random=8 uniform cubes from ScrambleGenerator(-Dregress.seed=47).
+ * Node counts and solution lengths are deterministic and compared case by case. Wall time is
+ * summarised as p50/p95/max over the cases, using each case's best of -Dregress.runs=1 solves.
+ *   record <baseline> - solve the corpus and write the baseline file
+ *   check <baseline>  - solve the cubes stored in the baseline, print a comparison and exit
+ *                       with 1 on a regression:
+ *     - a case's nodes grow by more than -Dregress.caseNodes=1.5x (and by at least
+ *       -Dregress.minNodes=10000, so near-trivial cases do not trip the ratio)
+ *     - total nodes grow by more than -Dregress.totalNodes=1.1x
+ *     - p95 time grows by more than -Dregress.p95=1.5x
+ *     - a case that was solved is not
+ * During a check each case may use at most 4x the case node threshold, so a blow-up
+ * stops early and is reported instead of hanging the suite.
+ * Longer solutions are reported but do not fail the check.
+ * Usage: java rubikscube.RegressionSuite <record|check> <baseline> (run from the directory with testcases/)
+ * testcases/regression-baseline.txt is the committed baseline; its times are machine-specific,
+ * so re-record it on the machine that runs the check before relying on the p95 gate.
+ */
+public final class RegressionSuite {
+
+    private static final int RANDOM = Integer.getInteger("regress.random", 8);
+    private static final long SEED = Long.getLong("regress.seed", 47L);
+    private static final int RUNS = Integer.getInteger("regress.runs", 1);
+    private static final double CASE_NODES = Double.parseDouble(System.getProperty("regress.caseNodes", "1.5"));
+    private static final long MIN_NODES = Long.getLong("regress.minNodes", 10_000L);
+    private static final double TOTAL_NODES = Double.parseDouble(System.getProperty("regress.totalNodes", "1.1"));
+    private static final double P95 = Double.parseDouble(System.getProperty("regress.p95", "1.5"));
+
+    private static final String HEADER = "# RegressionSuite baseline v1: name facelets p1nodes p2nodes length micros";
+
+    // One corpus entry and its measurements; length -1 = unsolved
+    static final class Case {
+        final String name;
+        final String facelets;
+        long phase1Nodes, phase2Nodes;
+        int length = -1;
+        long micros;
+
+        Case(String name, String facelets) {
+            this.name = name;
+            this.facelets = facelets;
+        }
+
+        long nodes() { return phase1Nodes + phase2Nodes; }
+    }
+
+    private RegressionSuite() { }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2 || !(args[0].equals("record") || args[0].equals("check"))) {
+            System.out.println("usage: java rubikscube.RegressionSuite <record|check> <baseline>");
+            return;
+        }
+        MoveTables.init();
+        LightPruningTables.buildAllBlocking();
+        Path path = Paths.get(args[1]);
+        if (args[0].equals("record")) {
+            List<Case> cases = corpus();
+            for (Case c : cases) run(c, SolveBudget.UNLIMITED);
+            write(path, cases);
+            System.out.printf("%d cases, %d nodes, p50 %.1f ms, p95 %.1f ms, max %.1f ms; baseline written to %s%n",
+                    cases.size(), totalNodes(cases), percentile(cases, 50) / 1e3, percentile(cases, 95) / 1e3,
+                    percentile(cases, 100) / 1e3, path);
+        } else {
+            System.exit(check(read(path)) ? 0 : 1);
+        }
+    }
+
+    static List<Case> corpus() throws IOException {
+        List<Case> cases = new ArrayList<>();
+        char[] f = new char[54];
+        for (int i = 1; i <= 40; i++) {
+            List<String> lines = Files.readAllLines(Paths.get(String.format("testcases/scramble%02d.txt", i)));
+            FaceCube.render(NetToCubie.fromFacelets(Solver.parseNetForVerify(lines)), FaceCube.DEFAULT_COLORS, f);
+            cases.add(new Case(String.format("scramble%02d", i), new String(f)));
+        }
+        ScrambleGenerator gen = new ScrambleGenerator(SEED);
+        CubieCube c = new CubieCube();
+        for (int i = 1; i <= RANDOM; i++) {
+            gen.uniform(c);
+            FaceCube.render(c, FaceCube.DEFAULT_COLORS, f);
+            cases.add(new Case(String.format("random%02d", i), new String(f)));
+        }
+        return cases;
+    }
+
+    // Nodes and length from the first solve, time is the best of RUNS
+    static void run(Case c, SolveBudget budget) {
+        CubieCube cube = NetToCubie.fromFacelets(c.facelets.toCharArray());
+        long best = Long.MAX_VALUE;
+        for (int r = 0; r < Math.max(1, RUNS); r++) {
+            TwoPhaseIDA solver = new TwoPhaseIDA();
+            long t0 = System.nanoTime();
+            SolveResult result = solver.solve(cube, budget);
+            best = Math.min(best, System.nanoTime() - t0);
+            if (r == 0) {
+                c.phase1Nodes = solver.getPhase1Nodes();
+                c.phase2Nodes = solver.getPhase2Nodes();
+                c.length = result.isSolved() ? Benchmarks.moveCount(result.getSolution()) : -1;
+            }
+            if (!result.isSolved()) break;
+        }
+        c.micros = best / 1000;
+    }
+
+    static boolean check(List<Case> baseline) {
+        List<Case> current = new ArrayList<>();
+        int failures = 0;
+        System.out.println("case          nodes(base)      nodes(now)   ratio  len(base) len(now)  ms(base)   ms(now)");
+        for (Case b : baseline) {
+            Case c = new Case(b.name, b.facelets);
+            long cap = b.length < 0 ? Long.MAX_VALUE : (long) Math.ceil(Math.max(b.nodes(), MIN_NODES) * CASE_NODES * 4);
+            run(c, SolveBudget.unlimited().withMaxNodes(cap));
+            current.add(c);
+            double ratio = b.nodes() == 0 ? 1 : (double) c.nodes() / b.nodes();
+            String verdict = "";
+            if (b.length >= 0 && c.length < 0) {
+                verdict = c.nodes() >= cap ? "  FAIL node cap" : "  FAIL unsolved";
+                failures++;
+            } else if (ratio > CASE_NODES && c.nodes() - b.nodes() >= MIN_NODES) {
+                verdict = "  FAIL nodes";
+                failures++;
+            } else if (c.length > b.length && b.length >= 0) {
+                verdict = "  longer";
+            }
+            System.out.printf("%-12s %12d %15d %7.2f %9d %8d %9.1f %9.1f%s%n", c.name, b.nodes(), c.nodes(), ratio,
+                    b.length, c.length, b.micros / 1e3, c.micros / 1e3, verdict);
+        }
+
+        long baseNodes = totalNodes(baseline), nowNodes = totalNodes(current);
+        double nodeRatio = baseNodes == 0 ? 1 : (double) nowNodes / baseNodes;
+        double baseP95 = percentile(baseline, 95), nowP95 = percentile(current, 95);
+        double p95Ratio = baseP95 == 0 ? 1 : nowP95 / baseP95;
+        System.out.printf("total nodes %d -> %d (%.3fx, limit %.2fx)%s%n", baseNodes, nowNodes, nodeRatio, TOTAL_NODES,
+                nodeRatio > TOTAL_NODES ? "  FAIL" : "");
+        System.out.printf("p50 %.1f -> %.1f ms, p95 %.1f -> %.1f ms (%.2fx, limit %.2fx)%s, max %.1f -> %.1f ms%n",
+                percentile(baseline, 50) / 1e3, percentile(current, 50) / 1e3, baseP95 / 1e3, nowP95 / 1e3,
+                p95Ratio, P95, p95Ratio > P95 ? "  FAIL" : "",
+                percentile(baseline, 100) / 1e3, percentile(current, 100) / 1e3);
+        if (nodeRatio > TOTAL_NODES) failures++;
+        if (p95Ratio > P95) failures++;
+        System.out.println(failures == 0 ? "PASS" : "FAIL: " + failures + " regression(s)");
+        return failures == 0;
+    }
+
+    static long totalNodes(List<Case> cases) {
+        long n = 0;
+        for (Case c : cases) n += c.nodes();
+        return n;
+    }
+
+    // Nearest-rank percentile of the per-case times, in microseconds
+    static double percentile(List<Case> cases, int p) {
+        if (cases.isEmpty()) return 0;
+        long[] t = new long[cases.size()];
+        for (int i = 0; i < t.length; i++) t[i] = cases.get(i).micros;
+        Arrays.sort(t);
+        int rank = (int) Math.ceil(p / 100.0 * t.length);
+        return t[Math.max(0, rank - 1)];
+    }
+
+    static void write(Path path, List<Case> cases) throws IOException {
+        try (BufferedWriter w = Files.newBufferedWriter(path)) {
+            w.write(HEADER);
+            w.newLine();
+            for (Case c : cases) {
+                w.write(c.name + " " + c.facelets + " " + c.phase1Nodes + " " + c.phase2Nodes + " " + c.length + " " + c.micros);
+                w.newLine();
+            }
+        }
+    }
+
+    static List<Case> read(Path path) throws IOException {
+        List<Case> cases = new ArrayList<>();
+        for (String line : Files.readAllLines(path)) {
+            if (line.isBlank() || line.startsWith("#")) continue;
+            String[] f = line.trim().split("\\s+");
+            if (f.length != 6 || f[1].length() != 54) throw new IOException("Bad baseline line: " + line);
+            Case c = new Case(f[0], f[1]);
+            c.phase1Nodes = Long.parseLong(f[2]);
+            c.phase2Nodes = Long.parseLong(f[3]);
+            c.length = Integer.parseInt(f[4]);
+            c.micros = Long.parseLong(f[5]);
+            cases.add(c);
+        }
+        return cases;
+    }
+}
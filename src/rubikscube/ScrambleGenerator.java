@@ -0,0 +1,145 @@
+package rubikscube;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+
+/**
+ * Load-test corpora. States are built from coordinates, not from random move sequences,
+ * so "uniform" is exactly uniform over the 43 quintillion legal states:
+ *   corner permutation, corner twist and edge flip are drawn with the CubieCube setters;
+ *   the edges are a uniform slice-edge placement (Edge4PosPerm coordinate) times a uniform
+ *   order of the other eight; a permutation parity mismatch is fixed by swapping the
+ *   cubies in corners URF/UFL, a bijection between the odd and even halves.
+ * Families:
+ *   uniform        - uniformly random legal states
+ *   superflip      - every edge flipped in place (20 moves, one of the hardest positions)
+ *   superflip-near - superflip followed by 1-3 random moves
+ *   deep-phase1    - uniform states whose phase-1 lower bound is at least -Dh1=9 (rejection sampling)
+ * Usage: java rubikscube.ScrambleGenerator <family> <count> <out> [lines|nets|dir]
+ *   lines - one 54-character line per cube in <out> (CubeStreamReader, Solver --bulk)
+ *   nets  - nine-line nets back to back in <out>
+ *   dir   - <out>/scrambleNNNNNN.txt, one net per file like testcases/
+ * -Dseed=1 makes runs repeatable.
+ */
+public final class ScrambleGenerator {
+
+    public static final int DEFAULT_DEEP_H1 = 9;
+
+    private final Random rnd;
+    private final CubieCube scratch = new CubieCube();
+
+    public ScrambleGenerator(long seed) {
+        rnd = new Random(seed);
+    }
+
+    public void uniform(CubieCube out) {
+        out.setCornerPermCoord(rnd.nextInt(LightPruningTables.N_CP));
+        out.setCornerOriCoord(rnd.nextInt(LightPruningTables.N_CO));
+        out.setEdge4PosPermCoord(CubieCube.FR, rnd.nextInt(MoveTables.N_EDGE4));
+        scratch.setUDEdgePermCoord(rnd.nextInt(LightPruningTables.N_UD_EP));
+        for (int i = 0, k = 0; i < 12; i++) {
+            if (out.ep[i] < CubieCube.FR) out.ep[i] = scratch.ep[k++];
+        }
+        out.setEdgeOriCoord(rnd.nextInt(LightPruningTables.N_EO));
+        if (parity(out.cp) != parity(out.ep)) {
+            byte t = out.cp[0];
+            out.cp[0] = out.cp[1];
+            out.cp[1] = t;
+        }
+    }
+
+    public void superflip(CubieCube out) {
+        out.copyFrom(new CubieCube());
+        for (int i = 0; i < 12; i++) out.eo[i] = 1;
+    }
+
+    public void superflipNear(CubieCube out) {
+        superflip(out);
+        int last = -1;
+        for (int k = 1 + rnd.nextInt(3); k > 0; k--) {
+            int m;
+            do { m = rnd.nextInt(6); } while (m == last);
+            last = m;
+            out.applyMove(m, 1 + rnd.nextInt(3));
+        }
+    }
+
+    // Needs MoveTables/LightPruningTables; returns the number of states drawn
+    public int deepPhase1(CubieCube out, int minH1) {
+        int draws = 0;
+        do {
+            uniform(out);
+            draws++;
+        } while (TwoPhaseIDA.heuristicPhase1Coord(out.getCornerOriCoord(), out.getEdgeOriCoord(), out.getUDSliceCoord()) < minH1);
+        return draws;
+    }
+
+    public void next(String family, CubieCube out) {
+        switch (family) {
+            case "uniform" -> uniform(out);
+            case "superflip" -> superflip(out);
+            case "superflip-near" -> superflipNear(out);
+            case "deep-phase1" -> deepPhase1(out, Integer.getInteger("h1", DEFAULT_DEEP_H1));
+            default -> throw new IllegalArgumentException("Unknown family: " + family);
+        }
+    }
+
+    private static int parity(byte[] perm) {
+        int parity = 0;
+        for (int i = 0; i < perm.length; i++) {
+            for (int j = i + 1; j < perm.length; j++) {
+                if (perm[i] > perm[j]) parity ^= 1;
+            }
+        }
+        return parity;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.out.println("usage: java rubikscube.ScrambleGenerator <uniform|superflip|superflip-near|deep-phase1> <count> <out> [lines|nets|dir]");
+            return;
+        }
+        String family = args[0];
+        int count = Integer.parseInt(args[1]);
+        Path out = Paths.get(args[2]);
+        String format = args.length > 3 ? args[3] : "lines";
+        if (family.equals("deep-phase1")) {
+            MoveTables.init();
+            LightPruningTables.buildAllBlocking();
+        }
+
+        ScrambleGenerator gen = new ScrambleGenerator(Long.getLong("seed", System.nanoTime()));
+        CubieCube c = new CubieCube();
+        char[] f = new char[54];
+        long t0 = System.nanoTime();
+        if (format.equals("dir")) {
+            Files.createDirectories(out);
+            for (int i = 1; i <= count; i++) {
+                gen.next(family, c);
+                FaceCube.render(c, FaceCube.DEFAULT_COLORS, f);
+                Files.write(out.resolve(String.format("scramble%06d.txt", i)), FaceCube.toNet(f));
+            }
+        } else {
+            try (BufferedWriter w = Files.newBufferedWriter(out)) {
+                for (int i = 0; i < count; i++) {
+                    gen.next(family, c);
+                    FaceCube.render(c, FaceCube.DEFAULT_COLORS, f);
+                    if (format.equals("nets")) {
+                        for (String row : FaceCube.toNet(f)) {
+                            w.write(row);
+                            w.newLine();
+                        }
+                    } else {
+                        w.write(FaceCube.toLine(f));
+                    }
+                    w.newLine();
+                }
+            }
+        }
+        System.out.printf("%d %s cubes written to %s in %.3f seconds%n", count, family, out, (System.nanoTime() - t0) / 1e9);
+    }
+}
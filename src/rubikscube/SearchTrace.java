@@ -0,0 +1,216 @@
+package rubikscube;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Opt-in ring buffer of TwoPhaseIDA search events, for post-mortems of slow solves. Each
+ * record is two longs in a preallocated array, so recording never allocates:
+ *   word 0: type (8 bits) | a (8) | b (8) | c (8) | microseconds since the solve started (32)
+ *   word 1: phase-1 + phase-2 nodes so far
+ * Only iteration-level events are traced, not nodes, so the overhead is a few stores per
+ * deepening step or phase-1 endpoint. When the buffer is full the oldest records are overwritten.
+ * With -Dtrace.thresholdMs=N (N >= 0) every TwoPhaseIDA gets a ring of -Dtrace.records=65536
+ * entries. A solve that takes N ms or more dumps the ring to -Dtrace.dir (default ".") as
+ * trace-<millis>-<seq>.bin. The dump holds a header, the start cube and the records oldest first.
+ * Usage: java rubikscube.SearchTrace <dump> [--records]   (summary, optionally every record)
+ */
+public final class SearchTrace {
+
+    private static final long THRESHOLD_MS = Long.getLong("trace.thresholdMs", -1L);
+    private static final int RECORDS = Integer.getInteger("trace.records", 1 << 16);
+    private static final String DIR = System.getProperty("trace.dir", ".");
+
+    // Record types; a, b and c per type
+    public static final int SOLVE_START = 1;       // h1, max length (255 = unlimited)
+    public static final int P1_ITERATION = 2;      // phase-1 limit
+    public static final int P1_ITERATION_END = 3;  // phase-1 limit, found (0/1)
+    public static final int PHASE_SWITCH = 4;      // phase-1 length, phase-2 h, phase-2 max depth
+    public static final int ENDPOINT_PRUNED = 5;   // phase-1 length, phase-2 h, phase-2 max depth
+    public static final int P2_ITERATION = 6;      // phase-2 limit, phase-1 length, 1 = fringe search to that depth
+    public static final int P2_RESULT = 7;         // found (0/1), phase-2 length
+    public static final int GOAL_REJECTED = 8;     // phase-1 length, phase-2 depth (coordinates solved, cube not)
+    public static final int SOLVE_END = 9;         // SolveResult.Status ordinal, phase-1 length, phase-2 length
+    private static final String[] NAMES = {"?", "solve-start", "p1-iteration", "p1-iteration-end", "phase-switch",
+            "endpoint-pruned", "p2-iteration", "p2-result", "goal-rejected", "solve-end"};
+
+    private static final int MAGIC = 0x53545243; // "STRC"
+    private static final int VERSION = 1;
+    private static final AtomicInteger DUMPS = new AtomicInteger();
+
+    private final long[] ring;
+    private final int mask;
+    private long written;
+    private long startNanos;
+
+    // capacity is rounded up to a power of two
+    public SearchTrace(int capacity) {
+        int n = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        ring = new long[2 * n];
+        mask = n - 1;
+    }
+
+    // A ring of -Dtrace.records entries for a new solver, or null when tracing is off
+    static SearchTrace forSolver() {
+        return THRESHOLD_MS >= 0 ? new SearchTrace(RECORDS) : null;
+    }
+
+    // Whether a solve that took this long is slow enough to dump
+    static boolean isSlow(long elapsedNanos) {
+        return elapsedNanos >= THRESHOLD_MS * 1_000_000L;
+    }
+
+    public void reset(long startNanos) {
+        this.startNanos = startNanos;
+        written = 0;
+    }
+
+    public void add(int type, int a, int b, int c, long nodes) {
+        long micros = Math.min((System.nanoTime() - startNanos) / 1000, 0xFFFFFFFFL);
+        int i = (int) (written++ & mask) * 2;
+        ring[i] = (long) type << 56 | (long) (a & 0xFF) << 48 | (long) (b & 0xFF) << 40 | (long) (c & 0xFF) << 32 | micros;
+        ring[i + 1] = nodes;
+    }
+
+    public int capacity() { return mask + 1; }
+    public long getWritten() { return written; }
+
+    // Writes the ring to DIR and returns the file
+    public Path dump(CubieCube start, long elapsedNanos) throws IOException {
+        Path dir = Paths.get(DIR);
+        Files.createDirectories(dir);
+        Path path = dir.resolve("trace-" + System.currentTimeMillis() + "-" + DUMPS.incrementAndGet() + ".bin");
+        char[] f = new char[54];
+        FaceCube.render(start, FaceCube.DEFAULT_COLORS, f);
+        int kept = (int) Math.min(written, capacity());
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(written);
+            out.writeLong(elapsedNanos);
+            out.write(new String(f).getBytes(StandardCharsets.US_ASCII));
+            out.writeInt(kept);
+            for (long k = written - kept; k < written; k++) {
+                int i = (int) (k & mask) * 2;
+                out.writeLong(ring[i]);
+                out.writeLong(ring[i + 1]);
+            }
+        }
+        return path;
+    }
+
+    static int type(long w) { return (int) (w >>> 56); }
+    static int a(long w) { return (int) (w >>> 48) & 0xFF; }
+    static int b(long w) { return (int) (w >>> 40) & 0xFF; }
+    static int c(long w) { return (int) (w >>> 32) & 0xFF; }
+    static long micros(long w) { return w & 0xFFFFFFFFL; }
+
+    private static String name(int type) { return type < NAMES.length ? NAMES[type] : "type" + type; }
+
+    // One phase-2 attempt from a phase-1 endpoint, for the summary
+    private record Attempt(int phase1Length, int h2, long nodes, long micros, boolean found) { }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("usage: java rubikscube.SearchTrace <dump> [--records]");
+            return;
+        }
+        boolean all = args.length > 1 && args[1].equals("--records");
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(Paths.get(args[0]))))) {
+            if (in.readInt() != MAGIC) throw new IOException("Not a search trace: " + args[0]);
+            int version = in.readInt();
+            if (version != VERSION) throw new IOException("Unsupported trace version " + version);
+            long written = in.readLong();
+            long elapsed = in.readLong();
+            byte[] facelets = new byte[54];
+            in.readFully(facelets);
+            int kept = in.readInt();
+            long[] w0 = new long[kept], nodes = new long[kept];
+            for (int i = 0; i < kept; i++) {
+                w0[i] = in.readLong();
+                nodes[i] = in.readLong();
+            }
+
+            System.out.println("cube     " + new String(facelets, StandardCharsets.US_ASCII));
+            System.out.printf("solve    %.3f ms, %d nodes at the last record%n", elapsed / 1e6, kept == 0 ? 0 : nodes[kept - 1]);
+            System.out.printf("records  %d written, %d kept%s%n", written, kept,
+                    written > kept ? " (oldest " + (written - kept) + " overwritten)" : "");
+
+            long[] perType = new long[NAMES.length + 1];
+            for (long w : w0) perType[Math.min(type(w), NAMES.length)]++;
+            for (int t = 1; t < NAMES.length; t++) if (perType[t] > 0) System.out.printf("  %-17s %d%n", name(t), perType[t]);
+
+            // phase-1 iterations: node and time deltas, and how their endpoints went
+            System.out.println("phase-1 iterations:");
+            System.out.println("  limit        nodes       ms  endpoints  pruned  p2-nodes  rejected");
+            List<Attempt> attempts = new ArrayList<>();
+            int limit = -1, endpoints = 0, pruned = 0, rejected = 0;
+            long itNodes = 0, itMicros = 0, p2Nodes = 0, switchNodes = 0, switchMicros = 0;
+            int switchLength = 0, switchH = 0;
+            for (int i = 0; i < kept; i++) {
+                long w = w0[i];
+                switch (type(w)) {
+                    case P1_ITERATION -> {
+                        limit = a(w);
+                        itNodes = nodes[i];
+                        itMicros = micros(w);
+                        endpoints = pruned = rejected = 0;
+                        p2Nodes = 0;
+                    }
+                    case PHASE_SWITCH -> {
+                        endpoints++;
+                        switchNodes = nodes[i];
+                        switchMicros = micros(w);
+                        switchLength = a(w);
+                        switchH = b(w);
+                    }
+                    case ENDPOINT_PRUNED -> pruned++;
+                    case GOAL_REJECTED -> rejected++;
+                    case P2_RESULT -> {
+                        long n = nodes[i] - switchNodes;
+                        p2Nodes += n;
+                        attempts.add(new Attempt(switchLength, switchH, n, micros(w) - switchMicros, a(w) == 1));
+                    }
+                    case P1_ITERATION_END -> {
+                        if (limit >= 0) {
+                            System.out.printf("  %5d %12d %8.1f %10d %7d %9d %9d%s%n", limit, nodes[i] - itNodes,
+                                    (micros(w) - itMicros) / 1e3, endpoints, pruned, p2Nodes, rejected, b(w) == 1 ? "  found" : "");
+                        }
+                        limit = -1;
+                    }
+                    default -> { }
+                }
+            }
+            if (limit >= 0 && kept > 0) {
+                System.out.printf("  %5d %12d %8.1f %10d %7d %9d %9d  (unfinished)%n", limit, nodes[kept - 1] - itNodes,
+                        (micros(w0[kept - 1]) - itMicros) / 1e3, endpoints, pruned, p2Nodes, rejected);
+            }
+
+            attempts.sort((x, y) -> Long.compare(y.nodes(), x.nodes()));
+            System.out.println("costliest phase-2 attempts:");
+            System.out.println("  p1-length  p2-h        nodes       ms  found");
+            for (int i = 0; i < Math.min(10, attempts.size()); i++) {
+                Attempt t = attempts.get(i);
+                System.out.printf("  %9d %5d %12d %8.1f  %s%n", t.phase1Length(), t.h2(), t.nodes(), t.micros() / 1e3, t.found() ? "yes" : "no");
+            }
+
+            if (all) {
+                System.out.println("records:");
+                for (int i = 0; i < kept; i++) {
+                    long w = w0[i];
+                    System.out.printf("  %10.3f ms %12d  %-17s %3d %3d %3d%n", micros(w) / 1e3, nodes[i], name(type(w)), a(w), b(w), c(w));
+                }
+            }
+        }
+    }
+}
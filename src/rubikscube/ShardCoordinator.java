@@ -0,0 +1,375 @@
+package rubikscube;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Splits a scramble file (CubeStreamReader format) into shards and solves them on N
+ * ShardWorker processes, each a JVM that builds the tables once and keeps its solver.
+ * Workers stand in for remote nodes: they only see their stdin/stdout pipes.
+ *   - a worker that exits or breaks its pipe is replaced, and its shard is sent again
+ *   - a shard running past -Dshard.timeoutMs kills its worker (same path as a dead one)
+ *   - when no fresh shards are left, an idle worker also takes a copy of a shard that has run
+ *     more than twice the median shard time; the first result wins
+ * Results are written in input order, as compact solution lines or a SolutionWriter file
+ * when the output ends in ".bin". Per-cube solve times from the workers go into a BatchStats
+ * summary (-Dstats.intervalSec, -Dstats.json). Cubes of a shard given up after MAX_ATTEMPTS
+ * count as unsolved there, with an equal share of the worker time the failed attempts used;
+ * so do cubes the reader rejects, which keep their place in the output.
+ * Usage: java rubikscube.ShardCoordinator <scrambles> <out>
+ *   -Dworkers=2 -Dshard.size=64 -Dshard.timeoutMs=600000 -Dshard.jvmArgs="-Xmx1g"
+ *   -Dshard.killEvery=0 (testing: kill a busy worker after every k completed shards)
+ */
+public final class ShardCoordinator {
+
+    private static final int WORKERS = Integer.getInteger("workers", 2);
+    private static final int SHARD_SIZE = Integer.getInteger("shard.size", 64);
+    private static final long SHARD_TIMEOUT_MS = Long.getLong("shard.timeoutMs", 600_000L);
+    private static final String WORKER_JVM_ARGS = System.getProperty("shard.jvmArgs", "");
+    private static final int KILL_EVERY = Integer.getInteger("shard.killEvery", 0);
+    // a shard that failed on this many workers is given up: its cubes are reported unsolved,
+    // each charged an equal share of the worker time its attempts used
+    public static final int MAX_ATTEMPTS = 3;
+    private static final long MIN_SPECULATE_NANOS = 1_000_000_000L;
+
+    private static final class Shard {
+        final int id;
+        final int first;
+        final String[] cubes;
+        int attempts;
+        int running;
+        boolean done;
+        boolean speculated;
+        boolean givenUp;
+        // worker time of the attempts that died
+        long failedNanos;
+        Worker copy;
+        String[] solutions;
+        long[] micros;
+
+        Shard(int id, int first, String[] cubes) {
+            this.id = id;
+            this.first = first;
+            this.cubes = cubes;
+        }
+    }
+
+    private enum Kind { READY, RESULT, DIED }
+
+    private record Event(Kind kind, Worker worker, int shardId, String[] solutions, long[] micros) { }
+
+    private final class Worker {
+        final int slot;
+        final Process process;
+        final BufferedWriter in;
+        boolean ready;
+        boolean dead;
+        boolean killed;
+        Shard current;
+        long startedNanos;
+
+        Worker(int slot) throws IOException {
+            this.slot = slot;
+            List<String> cmd = new ArrayList<>();
+            cmd.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+            for (String a : WORKER_JVM_ARGS.trim().split("\\s+")) if (!a.isEmpty()) cmd.add(a);
+            cmd.add("-cp");
+            cmd.add(System.getProperty("java.class.path"));
+            cmd.add(ShardWorker.class.getName());
+            process = new ProcessBuilder(cmd).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+            in = new BufferedWriter(new OutputStreamWriter(process.getOutputStream(), StandardCharsets.US_ASCII));
+            Thread t = new Thread(this::readLoop, "shard-worker-" + slot);
+            t.setDaemon(true);
+            t.start();
+        }
+
+        private void readLoop() {
+            try (BufferedReader out = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.US_ASCII))) {
+                String line;
+                while ((line = out.readLine()) != null) {
+                    if (line.equals("READY")) {
+                        events.add(new Event(Kind.READY, this, -1, null, null));
+                        continue;
+                    }
+                    String[] head = line.split(" ");
+                    if (head.length != 3 || !head[0].equals("RESULT")) throw new IOException("Bad reply: " + line);
+                    int n = Integer.parseInt(head[2]);
+                    String[] sols = new String[n];
+                    long[] micros = new long[n];
+                    for (int i = 0; i < n; i++) {
+                        String r = out.readLine();
+                        if (r == null) throw new IOException("Result truncated");
+                        int sp = r.indexOf(' ');
+                        micros[i] = Long.parseLong(r.substring(0, sp));
+                        sols[i] = r.substring(sp + 1);
+                    }
+                    events.add(new Event(Kind.RESULT, this, Integer.parseInt(head[1]), sols, micros));
+                }
+            } catch (IOException | RuntimeException e) {
+                // treated like an exit
+            }
+            events.add(new Event(Kind.DIED, this, -1, null, null));
+        }
+
+        void send(Shard s) {
+            current = s;
+            startedNanos = System.nanoTime();
+            s.running++;
+            try {
+                in.write("SHARD " + s.id + " " + s.cubes.length + " " + s.first);
+                in.newLine();
+                for (String c : s.cubes) {
+                    in.write(c);
+                    in.newLine();
+                }
+                in.flush();
+            } catch (IOException e) {
+                // the reader thread sees the broken pipe and reports DIED
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    private final BlockingQueue<Event> events = new LinkedBlockingQueue<>();
+    private final Worker[] workers;
+    private final Deque<Shard> retry = new ArrayDeque<>();
+    private final List<Shard> inFlight = new ArrayList<>();
+    private final TreeMap<Integer, Shard> finished = new TreeMap<>();
+    private final long[] recentShardNanos = new long[64];
+    private int recentCount;
+    private final int[] shardsPerSlot;
+
+    private int nextShardId;
+    private int nextToWrite;
+    private boolean inputDone;
+    private long cubes, solved, completedShards;
+    private long redispatched, speculative, speculativeWins, deaths, timeouts, kills, givenUp;
+    private long cpuMicros;
+    private final BatchStats stats = new BatchStats();
+    private int startupFailures;
+    private int nextCubeIndex;
+
+    private ShardCoordinator(int n) {
+        workers = new Worker[n];
+        shardsPerSlot = new int[n];
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.out.println("usage: java rubikscube.ShardCoordinator <scrambles> <out>");
+            return;
+        }
+        new ShardCoordinator(Math.max(1, WORKERS)).run(Paths.get(args[0]), Paths.get(args[1]));
+    }
+
+    private void run(Path input, Path output) throws Exception {
+        long t0 = System.nanoTime();
+        boolean binary = output.toString().endsWith(".bin");
+        for (int i = 0; i < workers.length; i++) workers[i] = new Worker(i);
+        try (CubeStreamReader reader = new CubeStreamReader(input);
+             BufferedWriter text = binary ? null : Files.newBufferedWriter(output);
+             SolutionWriter bin = binary ? new SolutionWriter(output) : null) {
+            char[] f = new char[54];
+            while (!inputDone || !inFlight.isEmpty() || !retry.isEmpty()) {
+                for (Worker w : workers) {
+                    if (!w.ready || w.current != null) continue;
+                    Shard s = retry.poll();
+                    if (s == null && !inputDone) s = readShard(reader, f);
+                    if (s == null) s = pickSpeculative();
+                    if (s == null) break;
+                    if (s.running > 0) s.copy = w;
+                    else if (!inFlight.contains(s)) inFlight.add(s);
+                    w.send(s);
+                }
+                Event e = events.poll(50, TimeUnit.MILLISECONDS);
+                if (e != null) handle(e);
+                checkTimeouts();
+                writeFinished(text, bin);
+                stats.maybeReport();
+            }
+            writeFinished(text, bin);
+        } finally {
+            for (Worker w : workers) shutdown(w);
+        }
+        long wall = System.nanoTime() - t0;
+        System.out.printf("%d cubes (%d solved) in %d shards on %d workers: %.3f s wall, %.3f s solver time, %.1f cubes/s%n",
+                cubes, solved, nextShardId, workers.length, wall / 1e9, cpuMicros / 1e6, cubes * 1e9 / wall);
+        System.out.printf("redispatched %d, worker deaths %d (timeouts %d, injected kills %d), speculative copies %d (won %d), given up %d%n",
+                redispatched, deaths, timeouts, kills, speculative, speculativeWins, givenUp);
+        System.out.println("shards per worker slot " + Arrays.toString(shardsPerSlot));
+        stats.finish();
+    }
+
+    private Shard readShard(CubeStreamReader reader, char[] f) throws IOException {
+        List<String> cubesInShard = new ArrayList<>(SHARD_SIZE);
+        while (cubesInShard.size() < SHARD_SIZE) {
+            // a cube the reader rejects keeps its index as an empty placeholder, which the
+            // worker reports unsolved like any invalid cube
+            try {
+                if (!reader.next(f)) break;
+                cubesInShard.add(new String(f));
+            } catch (IllegalArgumentException e) {
+                System.err.println("cube " + (nextCubeIndex + cubesInShard.size()) + " invalid: " + e.getMessage());
+                cubesInShard.add("");
+            }
+        }
+        if (cubesInShard.size() < SHARD_SIZE) inputDone = true;
+        if (cubesInShard.isEmpty()) return null;
+        Shard s = new Shard(nextShardId++, nextCubeIndex, cubesInShard.toArray(new String[0]));
+        nextCubeIndex += s.cubes.length;
+        return s;
+    }
+
+    // The longest-running unduplicated shard, if it is well past the usual shard time
+    private Shard pickSpeculative() {
+        if (!inputDone || recentCount == 0) return null;
+        long[] sorted = Arrays.copyOf(recentShardNanos, Math.min(recentCount, recentShardNanos.length));
+        Arrays.sort(sorted);
+        long threshold = Math.max(MIN_SPECULATE_NANOS, 2 * sorted[sorted.length / 2]);
+        long now = System.nanoTime();
+        Worker slowest = null;
+        for (Worker w : workers) {
+            if (w.current == null || w.current.speculated || w.current.done) continue;
+            if (now - w.startedNanos > threshold && (slowest == null || w.startedNanos < slowest.startedNanos)) slowest = w;
+        }
+        if (slowest == null) return null;
+        slowest.current.speculated = true;
+        speculative++;
+        return slowest.current;
+    }
+
+    private void handle(Event e) throws IOException {
+        Worker w = e.worker();
+        switch (e.kind()) {
+            case READY -> w.ready = true;
+            case RESULT -> {
+                Shard s = w.current;
+                w.current = null;
+                if (s == null || s.id != e.shardId()) return;
+                s.running--;
+                shardsPerSlot[w.slot]++;
+                recentShardNanos[recentCount++ % recentShardNanos.length] = System.nanoTime() - w.startedNanos;
+                if (s.done) return;
+                if (s.copy == w) speculativeWins++;
+                complete(s, e.solutions(), e.micros());
+                if (KILL_EVERY > 0 && completedShards % KILL_EVERY == 0) injectKill();
+            }
+            case DIED -> {
+                if (w.dead) return;
+                w.dead = true;
+                deaths++;
+                // a protocol error leaves the process running
+                w.process.destroyForcibly();
+                if (!w.ready && ++startupFailures > 3 * workers.length) {
+                    throw new IllegalStateException("Worker processes keep failing to start");
+                }
+                Shard s = w.current;
+                w.current = null;
+                if (s != null) {
+                    s.running--;
+                    s.failedNanos += System.nanoTime() - w.startedNanos;
+                    if (!s.done && s.running == 0) {
+                        if (++s.attempts >= MAX_ATTEMPTS) {
+                            givenUp++;
+                            s.givenUp = true;
+                            long[] micros = new long[s.cubes.length];
+                            Arrays.fill(micros, s.failedNanos / 1000 / s.cubes.length);
+                            complete(s, new String[s.cubes.length], micros);
+                        } else {
+                            redispatched++;
+                            retry.add(s);
+                        }
+                    }
+                }
+                workers[w.slot] = new Worker(w.slot);
+            }
+        }
+    }
+
+    private void complete(Shard s, String[] sols, long[] micros) {
+        s.done = true;
+        s.solutions = sols;
+        s.micros = micros;
+        inFlight.remove(s);
+        retry.remove(s);
+        finished.put(s.id, s);
+        completedShards++;
+    }
+
+    private void injectKill() {
+        for (Worker w : workers) {
+            if (w.current != null && !w.killed) {
+                w.killed = true;
+                kills++;
+                w.process.destroyForcibly();
+                return;
+            }
+        }
+    }
+
+    private void checkTimeouts() {
+        long now = System.nanoTime();
+        for (Worker w : workers) {
+            if (w.current != null && !w.killed && now - w.startedNanos > SHARD_TIMEOUT_MS * 1_000_000L) {
+                w.killed = true;
+                timeouts++;
+                w.process.destroyForcibly();
+            }
+        }
+    }
+
+    // Writes finished shards while they continue the input order
+    private void writeFinished(BufferedWriter text, SolutionWriter bin) throws IOException {
+        Shard s;
+        while ((s = finished.get(nextToWrite)) != null) {
+            finished.remove(nextToWrite++);
+            for (int i = 0; i < s.cubes.length; i++) {
+                String sol = s.solutions[i] == null ? "" : s.solutions[i];
+                boolean ok = !sol.isEmpty();
+                if (ok) solved++;
+                cpuMicros += s.micros[i];
+                if (s.cubes[i].isEmpty()) stats.recordInvalid(s.micros[i]);
+                else stats.record(s.micros[i], sol);
+                if (bin != null) {
+                    SolveResult.Status status = ok ? SolveResult.Status.SOLVED
+                            : s.givenUp ? SolveResult.Status.CANCELLED : SolveResult.Status.NO_SOLUTION;
+                    bin.write((int) cubes, status, s.micros[i] * 1000, sol);
+                } else {
+                    text.write(ok ? CompactMoveEncoder.programToCompact(sol) : "");
+                    text.newLine();
+                }
+                cubes++;
+            }
+        }
+    }
+
+    private void shutdown(Worker w) {
+        try {
+            w.in.write("QUIT");
+            w.in.newLine();
+            w.in.flush();
+        } catch (IOException ignored) { }
+        try {
+            if (!w.process.waitFor(2, TimeUnit.SECONDS)) w.process.destroyForcibly();
+        } catch (InterruptedException e) {
+            w.process.destroyForcibly();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
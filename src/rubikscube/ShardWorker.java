@@ -0,0 +1,68 @@
+package rubikscube;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Worker process for ShardCoordinator. Builds the tables once, then solves shards sent on
+ * stdin with the same path as Solver (symmetry cache + strategy scheduler), so the cache
+ * and scheduler history carry over from shard to shard. Line protocol:
+ *   worker:      READY
+ *   coordinator: SHARD <id> <n> [<first>], then n lines of the 54 facelets in NetToCubie index order;
+ *                <first> is the input index of the first cube (SolverEvents input ids)
+ *   worker:      RESULT <id> <n>, then n lines "<micros> <solution>" (empty solution = unsolved)
+ *   coordinator: QUIT
+ */
+public final class ShardWorker {
+
+    private ShardWorker() { }
+
+    public static void main(String[] args) throws IOException {
+        // stdout is the protocol pipe; anything else printed (e.g. NetToCubie's dump of an
+        // invalid cube) goes to stderr instead of corrupting the replies
+        PrintStream protocol = System.out;
+        System.setOut(System.err);
+        MoveTables.init();
+        LightPruningTables.buildAllBlocking();
+        BufferedReader in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.US_ASCII));
+        BufferedWriter out = new BufferedWriter(new OutputStreamWriter(protocol, StandardCharsets.US_ASCII));
+        out.write("READY");
+        out.newLine();
+        out.flush();
+
+        char[] facelets = new char[54];
+        StringBuilder results = new StringBuilder();
+        String line;
+        while ((line = in.readLine()) != null) {
+            if (line.equals("QUIT")) break;
+            String[] head = line.split(" ");
+            if (head.length < 3 || head.length > 4 || !head[0].equals("SHARD")) throw new IOException("Bad command: " + line);
+            int n = Integer.parseInt(head[2]);
+            long first = head.length == 4 ? Long.parseLong(head[3]) : -1;
+            results.setLength(0);
+            for (int i = 0; i < n; i++) {
+                String cube = in.readLine();
+                if (cube == null) throw new IOException("Shard " + head[1] + " truncated");
+                long t0 = System.nanoTime();
+                String sol = "";
+                try {
+                    cube.getChars(0, 54, facelets, 0);
+                    sol = Solver.solveOne(NetToCubie.fromFacelets(facelets), first < 0 ? -1 : first + i);
+                } catch (IllegalArgumentException | StringIndexOutOfBoundsException e) {
+                    // invalid cube: reported as unsolved
+                }
+                results.append((System.nanoTime() - t0) / 1000).append(' ').append(sol == null ? "" : sol).append('\n');
+            }
+            out.write("RESULT " + head[1] + " " + n);
+            out.newLine();
+            out.write(results.toString());
+            out.flush();
+        }
+        System.exit(0);
+    }
+}
@@ -0,0 +1,139 @@
+package rubikscube;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads the binary results written by SolutionWriter, one reused Record at a time.
+ * Usage: java rubikscube.SolutionReader <file> [--compact]
+ *   prints "index status micros solution" per record, spaced or CompactMoveEncoder notation
+ */
+public final class SolutionReader implements Closeable {
+
+    public static final class Record {
+        public int index;
+        public SolveResult.Status status;
+        public int elapsedMicros;
+        public int length;
+        // move * 3 + power - 1
+        public final byte[] moves = new byte[SolutionWriter.MAX_MOVES];
+
+        public int getMove(int i) { return moves[i] / 3; }
+        public int getPower(int i) { return moves[i] % 3 + 1; }
+
+        // "U R2 F'" notation
+        public String toSpaced() {
+            StringBuilder sb = new StringBuilder(length * 3);
+            for (int i = 0; i < length; i++) {
+                if (i > 0) sb.append(' ');
+                sb.append(Moves.moveToString(getMove(i), getPower(i)));
+            }
+            return sb.toString();
+        }
+
+        // CompactMoveEncoder notation: every turn written as clockwise quarter turns
+        public String toCompact() {
+            StringBuilder sb = new StringBuilder(length * 2);
+            for (int i = 0; i < length; i++) {
+                char face = Moves.MOVE_NAMES[getMove(i)].charAt(0);
+                for (int k = getPower(i); k > 0; k--) sb.append(face);
+            }
+            return sb.toString();
+        }
+    }
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(SolutionWriter.BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    private final long declaredCount;
+    private boolean eof;
+    private long count;
+
+    public SolutionReader(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        buffer.limit(0);
+        if (!ensure(SolutionWriter.HEADER_SIZE) || buffer.getInt() != SolutionWriter.MAGIC) {
+            channel.close();
+            throw new IOException(path + ": not a solution file");
+        }
+        short version = buffer.getShort();
+        buffer.getShort();
+        declaredCount = buffer.getLong();
+        if (version != SolutionWriter.VERSION) {
+            channel.close();
+            throw new IOException(path + ": unsupported version " + version);
+        }
+    }
+
+    // Fills r with the next record; false at end of file
+    public boolean next(Record r) throws IOException {
+        if (!ensure(10)) {
+            if (buffer.hasRemaining()) throw new IOException("Truncated record " + count);
+            return false;
+        }
+        r.index = buffer.getInt();
+        int status = buffer.get();
+        r.status = SolutionWriter.statusOf(status);
+        if (r.status == null) throw new IOException("Bad status " + status + " in record " + count);
+        r.elapsedMicros = buffer.getInt();
+        int n = buffer.get() & 0xFF;
+        int bytes = (5 * n + 7) / 8;
+        if (!ensure(bytes)) throw new IOException("Truncated record " + count);
+        int bits = 0, nbits = 0;
+        for (int i = 0; i < n; i++) {
+            if (nbits < 5) {
+                bits |= (buffer.get() & 0xFF) << nbits;
+                nbits += 8;
+            }
+            r.moves[i] = (byte) (bits & 31);
+            bits >>>= 5;
+            nbits -= 5;
+        }
+        r.length = n;
+        count++;
+        return true;
+    }
+
+    // Makes at least n bytes available, moving the unread tail to the front first
+    private boolean ensure(int n) throws IOException {
+        if (buffer.remaining() >= n) return true;
+        buffer.compact();
+        while (!eof && buffer.position() < n) {
+            if (channel.read(buffer) < 0) eof = true;
+        }
+        buffer.flip();
+        return buffer.remaining() >= n;
+    }
+
+    // Record count from the header, -1 if the writer was not closed
+    public long getDeclaredCount() { return declaredCount; }
+    public long getCount() { return count; }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("usage: java rubikscube.SolutionReader <file> [--compact]");
+            return;
+        }
+        boolean compact = args.length > 1 && args[1].equals("--compact");
+        Record r = new Record();
+        StringBuilder line = new StringBuilder();
+        try (SolutionReader in = new SolutionReader(Paths.get(args[0]))) {
+            while (in.next(r)) {
+                line.setLength(0);
+                line.append(r.index).append(' ').append(r.status).append(' ').append(r.elapsedMicros).append(' ')
+                        .append(compact ? r.toCompact() : r.toSpaced());
+                System.out.println(line);
+            }
+        }
+    }
+}
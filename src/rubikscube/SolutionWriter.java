@@ -0,0 +1,115 @@
+package rubikscube;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Binary results file for batch runs, written sequentially through one buffer.
+ * Header (16 bytes, little endian): magic "RCSB", version (short), reserved (short),
+ * record count (long, filled in by close(); -1 if the writer was never closed).
+ * Each record: input index (int), status (byte, statusCode), solve time
+ * in microseconds (int, saturating), move count (byte), then the moves as 5-bit values
+ * move * 3 + power - 1, packed least significant bit first into ceil(5 * count / 8) bytes.
+ * SolutionReader reads it back.
+ */
+public final class SolutionWriter implements Closeable {
+
+    static final int MAGIC = 0x42534352; // "RCSB" read as a little-endian int
+    static final short VERSION = 1;
+    static final int HEADER_SIZE = 16;
+    public static final int MAX_MOVES = 255;
+    // index + status + micros + count + packed moves
+    static final int MAX_RECORD_SIZE = 4 + 1 + 4 + 1 + (5 * MAX_MOVES + 7) / 8;
+
+    public static final int BUFFER_SIZE = 1 << 16;
+
+    // Status codes of the file format, fixed apart from the enum's order; changing or
+    // reusing one needs a new VERSION, a new status needs a new code
+    static int statusCode(SolveResult.Status status) {
+        return switch (status) {
+            case SOLVED -> 0;
+            case NO_SOLUTION -> 1;
+            case TIMEOUT -> 2;
+            case NODE_LIMIT -> 3;
+            case CANCELLED -> 4;
+        };
+    }
+
+    // The status with this code, or null for an unknown one
+    static SolveResult.Status statusOf(int code) {
+        return switch (code) {
+            case 0 -> SolveResult.Status.SOLVED;
+            case 1 -> SolveResult.Status.NO_SOLUTION;
+            case 2 -> SolveResult.Status.TIMEOUT;
+            case 3 -> SolveResult.Status.NODE_LIMIT;
+            case 4 -> SolveResult.Status.CANCELLED;
+            default -> null;
+        };
+    }
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    private final int[] mv = new int[MAX_MOVES];
+    private final int[] pw = new int[MAX_MOVES];
+    private long count;
+
+    public SolutionWriter(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        buffer.putInt(MAGIC).putShort(VERSION).putShort((short) 0).putLong(-1L);
+    }
+
+    // solution in either text notation (see Moves.parseSequence); "" or null for none
+    public void write(int index, SolveResult.Status status, long elapsedNanos, String solution) throws IOException {
+        int n = solution == null ? 0 : Moves.parseSequence(solution, mv, pw);
+        write(index, status, elapsedNanos, mv, pw, n);
+    }
+
+    public void write(int index, SolveResult.Status status, long elapsedNanos, int[] moves, int[] powers, int length)
+            throws IOException {
+        if (length > MAX_MOVES) throw new IllegalArgumentException("More than " + MAX_MOVES + " moves: " + length);
+        if (buffer.remaining() < MAX_RECORD_SIZE) flush();
+        long micros = elapsedNanos / 1000;
+        buffer.putInt(index)
+                .put((byte) statusCode(status))
+                .putInt((int) Math.min(micros, Integer.MAX_VALUE))
+                .put((byte) length);
+        int bits = 0, nbits = 0;
+        for (int i = 0; i < length; i++) {
+            bits |= (moves[i] * 3 + powers[i] - 1) << nbits;
+            nbits += 5;
+            while (nbits >= 8) {
+                buffer.put((byte) bits);
+                bits >>>= 8;
+                nbits -= 8;
+            }
+        }
+        if (nbits > 0) buffer.put((byte) bits);
+        count++;
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) channel.write(buffer);
+        buffer.clear();
+    }
+
+    public long getCount() { return count; }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+            ByteBuffer n = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN).putLong(count);
+            n.flip();
+            channel.write(n, 8);
+        } finally {
+            channel.close();
+        }
+    }
+}
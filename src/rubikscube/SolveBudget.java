@@ -0,0 +1,82 @@
+package rubikscube;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits for one TwoPhaseIDA solve: wall-clock time, searched nodes and solution length,
+ * plus cooperative cancellation. The search polls the budget once every checkInterval
+ * nodes instead of testing the thread's interrupt flag at every node, so a timeout needs
+ * no extra thread. Budgets are immutable apart from cancel() and can be reused; the
+ * timeout is measured from the start of each solve.
+ */
+public final class SolveBudget {
+
+    public static final int DEFAULT_CHECK_INTERVAL = 4096;
+
+    public static final SolveBudget UNLIMITED = new SolveBudget(0, Long.MAX_VALUE, Integer.MAX_VALUE, DEFAULT_CHECK_INTERVAL);
+
+    private final long timeoutNanos;   // 0 = no time limit
+    private final long maxNodes;
+    private final int maxLength;
+    private final int checkInterval;
+    private volatile boolean cancelled;
+
+    private SolveBudget(long timeoutNanos, long maxNodes, int maxLength, int checkInterval) {
+        if (timeoutNanos < 0) throw new IllegalArgumentException("timeout must be >= 0");
+        if (maxNodes < 1) throw new IllegalArgumentException("maxNodes must be >= 1");
+        if (maxLength < 0) throw new IllegalArgumentException("maxLength must be >= 0");
+        if (checkInterval < 1) throw new IllegalArgumentException("checkInterval must be >= 1");
+        this.timeoutNanos = timeoutNanos;
+        this.maxNodes = maxNodes;
+        this.maxLength = maxLength;
+        this.checkInterval = checkInterval;
+    }
+
+    // A fresh unlimited budget that can be cancelled without affecting anyone else
+    public static SolveBudget unlimited() {
+        return new SolveBudget(0, Long.MAX_VALUE, Integer.MAX_VALUE, DEFAULT_CHECK_INTERVAL);
+    }
+
+    public static SolveBudget ofMillis(long timeoutMillis) {
+        return UNLIMITED.withTimeout(timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public SolveBudget withTimeout(long timeout, TimeUnit unit) {
+        return new SolveBudget(unit.toNanos(timeout), maxNodes, maxLength, checkInterval);
+    }
+
+    public SolveBudget withMaxNodes(long maxNodes) {
+        return new SolveBudget(timeoutNanos, maxNodes, maxLength, checkInterval);
+    }
+
+    public SolveBudget withMaxLength(int maxLength) {
+        return new SolveBudget(timeoutNanos, maxNodes, maxLength, checkInterval);
+    }
+
+    public SolveBudget withCheckInterval(int checkInterval) {
+        return new SolveBudget(timeoutNanos, maxNodes, maxLength, checkInterval);
+    }
+
+    // Stops every solve running under this budget at its next poll
+    public void cancel() {
+        if (this == UNLIMITED) throw new IllegalStateException("UNLIMITED is shared; cancel a budget of your own");
+        cancelled = true;
+    }
+    public boolean isCancelled() { return cancelled; }
+
+    public long getTimeoutNanos() { return timeoutNanos; }
+    public long getMaxNodes() { return maxNodes; }
+    public int getMaxLength() { return maxLength; }
+    public int getCheckInterval() { return checkInterval; }
+
+    long deadlineFrom(long startNanos) {
+        return timeoutNanos == 0 ? Long.MAX_VALUE : startNanos + timeoutNanos;
+    }
+
+    SolveResult.Status check(long nodes, long deadlineNanos) {
+        if (cancelled) return SolveResult.Status.CANCELLED;
+        if (nodes >= maxNodes) return SolveResult.Status.NODE_LIMIT;
+        if (deadlineNanos != Long.MAX_VALUE && System.nanoTime() - deadlineNanos >= 0) return SolveResult.Status.TIMEOUT;
+        return null;
+    }
+}
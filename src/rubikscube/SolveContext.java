@@ -0,0 +1,229 @@
+package rubikscube;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A solution being executed, for callers that re-scan the cube while the moves are
+ * carried out. The context knows every state along the plan. After moves are applied,
+ * or after a new scan, it repairs the plan as cheaply as possible:
+ *   ON_PLAN         - the cube is where the plan expects it
+ *   JUMPED          - the cube is at another state of the plan (moves skipped or repeated)
+ *   RECONNECTED     - a connector of at most MAX_CONNECTOR moves leads back onto the plan
+ *   PHASE2_RESEEDED - the cube is still in the phase-2 subgroup, so only phase 2 is searched again
+ *   RESOLVED        - none of the above; a full TwoPhaseIDA solve
+ *   UNDONE          - after applied() moves: undo them and finish the old plan, because the
+ *                     seeded re-solve found nothing shorter
+ *   UNSOLVED        - the full solve failed within the budget
+ * When applied() leaves the plan, the old plan is the seed of the re-solve: undoing the moves
+ * and following the rest of the plan (through its phase-1 endpoint) is a known solution, so
+ * the search only looks for a shorter one, within SEED_NODES nodes, and falls back to it.
+ */
+public class SolveContext {
+
+    public enum Repair { ON_PLAN, JUMPED, RECONNECTED, PHASE2_RESEEDED, RESOLVED, UNDONE, UNSOLVED }
+
+    public static final int MAX_CONNECTOR = 3;
+    // node cap of the re-solve when undoing the applied moves is the fallback
+    private static final long SEED_NODES = Long.getLong("solveContext.seedNodes", 500_000L);
+
+    private static final int SLICE_SOLVED = CubieCube.SLICE_SOLVED_COORD;
+
+    private final CubieCube current;
+    private final SolveBudget budget;
+    private int[] planMoves = new int[0];
+    private int[] planPowers = new int[0];
+    private int position;
+    // plan index of every state along the plan; the latest index wins for repeated states
+    private final Map<StateKey, Integer> pathIndex = new HashMap<>();
+    private Repair lastRepair = Repair.RESOLVED;
+
+    // connector search scratch
+    private final int[] connMoves = new int[MAX_CONNECTOR];
+    private final int[] connPowers = new int[MAX_CONNECTOR];
+    private int bestIndex;
+
+    // Corners as 8 x (3-bit position + 2-bit twist), edges as 12 x (4-bit position + flip bit)
+    private record StateKey(long corners, long edges) {
+        static StateKey of(CubieCube c) {
+            long corners = 0, edges = 0;
+            for (int i = 0; i < 8; i++) corners = corners << 5 | c.cp[i] << 2 | c.co[i];
+            for (int i = 0; i < 12; i++) edges = edges << 5 | c.ep[i] << 1 | c.eo[i];
+            return new StateKey(corners, edges);
+        }
+    }
+
+    private SolveContext(CubieCube start, SolveBudget budget) {
+        this.current = new CubieCube(start);
+        this.budget = budget;
+    }
+
+    public static SolveContext solve(CubieCube start) {
+        return solve(start, SolveBudget.UNLIMITED);
+    }
+
+    // The budget applies to this solve and to every full re-solve the context needs later
+    public static SolveContext solve(CubieCube start, SolveBudget budget) {
+        SolveContext ctx = new SolveContext(start, budget);
+        ctx.resolve(null, null, 0);
+        return ctx;
+    }
+
+    // Reports moves the robot executed. Moves that follow the plan only advance the position.
+    public Repair applied(int[] moves, int[] powers, int length) {
+        boolean onPlan = position + length <= planMoves.length;
+        for (int i = 0; onPlan && i < length; i++) {
+            onPlan = moves[i] == planMoves[position + i] && powers[i] == planPowers[position + i];
+        }
+        for (int i = 0; i < length; i++) current.applyMove(moves[i], powers[i]);
+        if (onPlan) {
+            position += length;
+            return lastRepair = Repair.ON_PLAN;
+        }
+        return repair(moves, powers, length);
+    }
+
+    // Reports a fresh scan of the cube
+    public Repair resync(CubieCube observed) {
+        current.copyFrom(observed);
+        return repair(null, null, 0);
+    }
+
+    public Repair resync(char[] facelets) {
+        return resync(NetToCubie.fromFacelets(facelets));
+    }
+
+    // offMoves: the moves applied since the plan position, when known (null after a scan)
+    private Repair repair(int[] offMoves, int[] offPowers, int offLength) {
+        Integer idx = pathIndex.get(StateKey.of(current));
+        if (idx != null) {
+            Repair r = idx == position ? Repair.ON_PLAN : Repair.JUMPED;
+            position = idx;
+            return lastRepair = r;
+        }
+        for (int depth = 1; depth <= MAX_CONNECTOR; depth++) {
+            bestIndex = -1;
+            if (connect(0, depth, -1)) {
+                int[] m = new int[depth + planMoves.length - bestIndex];
+                int[] p = new int[m.length];
+                System.arraycopy(connMoves, 0, m, 0, depth);
+                System.arraycopy(connPowers, 0, p, 0, depth);
+                System.arraycopy(planMoves, bestIndex, m, depth, planMoves.length - bestIndex);
+                System.arraycopy(planPowers, bestIndex, p, depth, planPowers.length - bestIndex);
+                setPlan(m, p);
+                return lastRepair = Repair.RECONNECTED;
+            }
+        }
+        if (current.getCornerOriCoord() == 0 && current.getEdgeOriCoord() == 0
+                && current.getUDSliceCoord() == SLICE_SOLVED && reseedPhase2()) {
+            return lastRepair = Repair.PHASE2_RESEEDED;
+        }
+        return lastRepair = resolve(offMoves, offPowers, offLength);
+    }
+
+    // Depth-limited search over all 18 moves for a path onto the plan. Moves are undone in
+    // place, so the search allocates nothing but the key lookups. Among the states reached
+    // at the final depth, the one furthest along the plan wins.
+    private boolean connect(int depth, int limit, int lastMove) {
+        if (depth == limit) {
+            Integer idx = pathIndex.get(StateKey.of(current));
+            if (idx != null && idx > bestIndex) bestIndex = idx;
+            return idx != null;
+        }
+        boolean found = false;
+        for (int move = 0; move < 6; move++) {
+            if (move == lastMove) continue;
+            for (int p = 1; p <= 3; p++) {
+                current.applyMove(move, p);
+                int savedBest = bestIndex;
+                if (connect(depth + 1, limit, move) && bestIndex != savedBest) {
+                    connMoves[depth] = move;
+                    connPowers[depth] = p;
+                    found = true;
+                    // later branches overwrite the deeper slots only when they improve bestIndex
+                }
+                current.applyMove(move, 4 - p);
+            }
+        }
+        return found;
+    }
+
+    // Phase 2 under the context's budget, no longer than the rest of the plan plus a connector's
+    // worth of moves (the budget's max length alone when there is no plan); false sends the
+    // repair on to the full re-solve
+    private boolean reseedPhase2() {
+        CubieCube g1 = new CubieCube(current);
+        TwoPhaseIDA ida = new TwoPhaseIDA();
+        int maxLength = planMoves.length == 0 ? budget.getMaxLength()
+                : Math.min(budget.getMaxLength(), planMoves.length - position + MAX_CONNECTOR);
+        int bound = maxLength == Integer.MAX_VALUE ? maxLength : maxLength + 1;
+        String sol = ida.solvePhase2From(g1, new byte[0], 0, g1.getCornerPermCoord(), SLICE_SOLVED,
+                g1.getUDEdgePermCoord(), g1.getUEdgePermCoord(), g1.getDEdgePermCoord(), () -> bound, budget);
+        if (sol == null) return false;
+        int n = ida.getPhase2Length();
+        setPlan(Arrays.copyOf(ida.getSolutionMovesArray(), n), Arrays.copyOf(ida.getSolutionPowersArray(), n));
+        return true;
+    }
+
+    private Repair resolve(int[] offMoves, int[] offPowers, int offLength) {
+        int[] undoMoves = null, undoPowers = null;
+        SolveBudget b = budget;
+        if (offMoves != null && offLength + planMoves.length - position <= budget.getMaxLength()) {
+            // the seed: the applied moves inverted, then the plan from where they started
+            int rest = planMoves.length - position;
+            undoMoves = new int[offLength + rest];
+            undoPowers = new int[undoMoves.length];
+            for (int i = 0; i < offLength; i++) {
+                undoMoves[i] = offMoves[offLength - 1 - i];
+                undoPowers[i] = 4 - offPowers[offLength - 1 - i];
+            }
+            System.arraycopy(planMoves, position, undoMoves, offLength, rest);
+            System.arraycopy(planPowers, position, undoPowers, offLength, rest);
+            b = budget.withMaxLength(undoMoves.length - 1).withMaxNodes(Math.min(budget.getMaxNodes(), SEED_NODES));
+        }
+        TwoPhaseIDA ida = new TwoPhaseIDA();
+        SolveResult r = ida.solve(new CubieCube(current), b);
+        if (!r.isSolved() && undoMoves != null) {
+            setPlan(undoMoves, undoPowers);
+            return Repair.UNDONE;
+        }
+        if (!r.isSolved()) {
+            setPlan(new int[0], new int[0]);
+            pathIndex.clear();
+            return Repair.UNSOLVED;
+        }
+        int n = ida.getPhase1Length() + ida.getPhase2Length();
+        setPlan(Arrays.copyOf(ida.getSolutionMovesArray(), n), Arrays.copyOf(ida.getSolutionPowersArray(), n));
+        return Repair.RESOLVED;
+    }
+
+    private void setPlan(int[] moves, int[] powers) {
+        planMoves = moves;
+        planPowers = powers;
+        position = 0;
+        pathIndex.clear();
+        CubieCube walk = new CubieCube(current);
+        pathIndex.put(StateKey.of(walk), 0);
+        for (int i = 0; i < moves.length; i++) {
+            walk.applyMove(moves[i], powers[i]);
+            pathIndex.put(StateKey.of(walk), i + 1);
+        }
+    }
+
+    public Repair getLastRepair() { return lastRepair; }
+    public boolean isSolved() { return current.isSolved(); }
+    public CubieCube getCurrent() { return new CubieCube(current); }
+    public int getPosition() { return position; }
+    public int getRemainingLength() { return planMoves.length - position; }
+
+    // Moves still to execute, "" when solved or when no plan could be found
+    public String getRemaining() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = position; i < planMoves.length; i++) {
+            if (sb.length() > 0) sb.append(' ');
+            sb.append(Moves.moveToString(planMoves[i], planPowers[i]));
+        }
+        return sb.toString();
+    }
+}
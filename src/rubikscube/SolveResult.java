@@ -0,0 +1,50 @@
+package rubikscube;
+
+/**
+ * Outcome of a budgeted TwoPhaseIDA solve. When the budget runs out before a solution is
+ * found, partial holds the most promising phase-1 prefix reached so far: it takes the cube
+ * into the phase-2 subgroup, and its phase-2 lower bound is the smallest seen.
+ */
+public final class SolveResult {
+
+    public enum Status {
+        SOLVED,
+        // searched everything allowed by maxLength without a solution
+        NO_SOLUTION,
+        TIMEOUT,
+        NODE_LIMIT,
+        CANCELLED
+    }
+
+    private final Status status;
+    private final String solution;
+    private final String partial;
+    private final int partialLowerBound;
+    private final long nodes;
+    private final long elapsedNanos;
+
+    SolveResult(Status status, String solution, String partial, int partialLowerBound, long nodes, long elapsedNanos) {
+        this.status = status;
+        this.solution = solution;
+        this.partial = partial;
+        this.partialLowerBound = partialLowerBound;
+        this.nodes = nodes;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public Status getStatus() { return status; }
+    public boolean isSolved() { return status == Status.SOLVED; }
+    // Full solution, or "" unless solved
+    public String getSolution() { return solution; }
+    // Phase-1 prefix of the best unfinished endpoint, or "" if no endpoint was reached
+    public String getPartial() { return partial; }
+    // Lower bound on the moves still needed after the partial prefix (-1 without one)
+    public int getPartialLowerBound() { return partialLowerBound; }
+    public long getNodes() { return nodes; }
+    public long getElapsedNanos() { return elapsedNanos; }
+
+    @Override
+    public String toString() {
+        return status + (isSolved() ? " " + solution : partial.isEmpty() ? "" : " partial " + partial + " (+" + partialLowerBound + ")");
+    }
+}
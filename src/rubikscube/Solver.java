@@ -2,10 +2,13 @@ package rubikscube;
 
 import java.nio.file.*;
 import java.util.*;
-import java.util.concurrent.*;
 
 public class Solver {
 
+    // Chooses between phase-2 strategies from earlier solves and hedges slow ones
+    private static final StrategyScheduler SCHEDULER = new StrategyScheduler();
+    // Repeated states, also up to rotation, mirroring and inversion, are answered from here
+    private static final SymmetryCache CACHE = new SymmetryCache(4096, true);
 
     public static void main(String[] args) {
         MoveTables.init();
@@ -15,6 +18,10 @@ public class Solver {
             solveBatch();
             return;
         }
+        if (args[0].equals("--bulk") && args.length >= 3) {
+            solveBulk(args[1], args[2]);
+            return;
+        }
 
         String inFile = args[0];
         String outFile = args[1];
@@ -35,66 +42,164 @@ public class Solver {
         }
     }
 
+    // Progress goes to -Dcheckpoint (default solutions.ckpt); a rerun skips finished scrambles
+    // as long as the testcases/ files are unchanged.
+    // Ends with a BatchStats summary of this run's solves.
     private static void solveBatch() {
-        for (int i = 1; i <= 40; i++) {
-            long t0 = System.nanoTime();
-            String scrambleFile = String.format("testcases/scramble%02d.txt", i);
-            String outFile = String.format("solution%02d.txt", i);
-            String userSolution = "";
-            try {
-                List<String> lines = Files.readAllLines(Paths.get(scrambleFile));
-                CubieCube cc = NetToCubie.fromFacelets(parseNetForVerify(lines));
-                String prog = new TwoPhaseIDA().solve(new CubieCube(cc));
-                if (prog != null && !prog.isEmpty()) userSolution = programToCompact(prog);
-            } catch (Exception e) {
-                userSolution = "";
+        Path ckpt = Paths.get(System.getProperty("checkpoint", "solutions.ckpt"));
+        BatchStats stats = new BatchStats();
+        List<Path> scrambles = new ArrayList<>();
+        for (int i = 1; i <= 40; i++) scrambles.add(Paths.get(String.format("testcases/scramble%02d.txt", i)));
+        try (CheckpointLog log = CheckpointLog.open(ckpt, CheckpointLog.fingerprint(scrambles))) {
+            if (log.size() > 0) System.out.printf("resuming: %d scrambles already done%n", log.size());
+            for (int i = 1; i <= 40; i++) {
+                if (log.isDone(i)) continue;
+                long t0 = System.nanoTime();
+                String outFile = String.format("solution%02d.txt", i);
+                String userSolution = "";
+                String prog = null;
+                boolean invalid = false;
+                try {
+                    List<String> lines = Files.readAllLines(scrambles.get(i - 1));
+                    CubieCube cc = NetToCubie.fromFacelets(parseNetForVerify(lines));
+                    prog = new TwoPhaseIDA().solve(new CubieCube(cc));
+                    if (prog != null && !prog.isEmpty()) userSolution = programToCompact(prog);
+                } catch (Exception e) {
+                    userSolution = "";
+                    invalid = true;
+                }
+                long elapsed = System.nanoTime() - t0;
+                if (invalid) stats.recordInvalid(elapsed / 1000);
+                else stats.record(elapsed / 1000, prog);
+                try {
+                    Files.write(Paths.get(outFile), Arrays.asList(userSolution));
+                } catch (Exception ignored) { }
+                log.record(i, elapsed / 1000, userSolution);
+                System.out.printf("scramble%02d %s in %.3f seconds%n", i, userSolution.isEmpty() ? "unsolved" : "solved", elapsed / 1_000_000_000.0);
+                stats.maybeReport();
             }
-            double elapsedSec = (System.nanoTime() - t0) / 1_000_000_000.0;
-            try {
-                Files.write(Paths.get(outFile), Arrays.asList(userSolution));
-            } catch (Exception ignored) { }
-            System.out.printf("scramble%02d %s in %.3f seconds%n", i, userSolution.isEmpty() ? "unsolved" : "solved", elapsedSec);
+            log.delete();
+        } catch (java.io.IOException e) {
+            e.printStackTrace();
         }
+        stats.finish();
     }
 
-    private static String solveOne(CubieCube cc) {
-        int h1 = estimatePhase1Heuristic(cc);
+    // Many cubes from one file (see CubeStreamReader). Output is one compact solution per
+    // line, or a SolutionWriter binary file when the output name ends in ".bin". Finished
+    // cubes go to the checkpoint log -Dcheckpoint (default <out>.ckpt) as they complete; the
+    // output is built from the log at the end and moved into place, so a killed run resumes
+    // where it stopped and every cube appears exactly once. The log is tied to the input file
+    // (CheckpointLog.fingerprint), so it is never resumed against another one. BatchStats
+    // covers the cubes solved in this run (not those resumed from the log).
+    private static void solveBulk(String inFile, String outFile) {
+        char[] facelets = new char[54];
+        int solved = 0, failed = 0, resumed = 0;
+        boolean binary = outFile.endsWith(".bin");
+        Path out = Paths.get(outFile);
+        Path ckpt = Paths.get(System.getProperty("checkpoint", outFile + ".ckpt"));
+        long t0 = System.nanoTime();
+        BatchStats stats = new BatchStats();
+        try (CubeStreamReader in = new CubeStreamReader(Paths.get(inFile));
+             CheckpointLog log = CheckpointLog.open(ckpt, CheckpointLog.fingerprint(List.of(Paths.get(inFile))))) {
+            resumed = log.size();
+            for (int index = 0; ; index++) {
+                long c0 = System.nanoTime();
+                // a line the reader rejects is one invalid cube; it keeps its index so reruns line up
+                IllegalArgumentException parseError = null;
+                try {
+                    if (!in.next(facelets)) break;
+                } catch (IllegalArgumentException e) {
+                    parseError = e;
+                }
+                if (log.isDone(index)) continue;
+                String sol = "";
+                boolean invalid = parseError != null;
+                if (invalid) {
+                    System.err.println(inFile + ": cube " + index + " invalid: " + parseError.getMessage());
+                } else {
+                    try {
+                        sol = solveOne(NetToCubie.fromFacelets(facelets), index);
+                    } catch (IllegalArgumentException e) {
+                        // invalid cube: recorded like an unsolved one
+                        invalid = true;
+                    }
+                }
+                boolean ok = sol != null && !sol.isEmpty();
+                if (ok) solved++; else failed++;
+                long micros = (System.nanoTime() - c0) / 1000;
+                if (invalid) stats.recordInvalid(micros);
+                else stats.record(micros, sol);
+                stats.maybeReport();
+                log.record(index, micros, ok ? sol : "");
+            }
 
-        if (h1 >= 7) {
-            // Pass 1: stricter phase-2 pruning with opposite blocking to speed deeper cases
-            TwoPhaseIDA.BLOCK_OPPOSITE_IN_PHASE2 = true;
-            ExecutorService exec = Executors.newSingleThreadExecutor();
-            Future<String> strict = exec.submit(() -> new TwoPhaseIDA().solve(new CubieCube(cc)));
-            String sol = "";
-            try {
-                sol = strict.get(8, TimeUnit.SECONDS);
-            } catch (TimeoutException te) {
-                strict.cancel(true);
-            } catch (Exception e) {
-                strict.cancel(true);
-            } finally {
-                exec.shutdownNow();
+            Path tmp = Paths.get(outFile + ".tmp");
+            try (java.io.BufferedWriter text = binary ? null : Files.newBufferedWriter(tmp);
+                 SolutionWriter bin = binary ? new SolutionWriter(tmp) : null) {
+                log.replay((id, micros, sol) -> {
+                    if (binary) {
+                        bin.write((int) id, sol.isEmpty() ? SolveResult.Status.NO_SOLUTION : SolveResult.Status.SOLVED,
+                                micros * 1000, sol);
+                    } else {
+                        text.write(sol.isEmpty() ? "" : programToCompact(sol));
+                        text.newLine();
+                    }
+                });
             }
-            if (sol != null && !sol.isEmpty()) {
-                TwoPhaseIDA.BLOCK_OPPOSITE_IN_PHASE2 = false;
-                return sol;
+            Files.move(tmp, out, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.delete();
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        double elapsedSec = (System.nanoTime() - t0) / 1_000_000_000.0;
+        System.out.printf("%s: %d solved, %d unsolved in %.3f seconds%s%n", inFile, solved, failed, elapsedSec,
+                resumed > 0 ? " (" + resumed + " resumed from checkpoint)" : "");
+        stats.finish();
+    }
+
+    // Cache, then scheduler; "" when unsolved. Also the per-cube path of ShardWorker.
+    static String solveOne(CubieCube cc) {
+        return solveOne(cc, -1);
+    }
+
+    // inputId only labels the SolverEvents (input index in bulk runs, -1 when there is none)
+    static String solveOne(CubieCube cc, long inputId) {
+        SolverEvents.Solve ev = new SolverEvents.Solve();
+        ev.begin();
+        boolean[] searched = new boolean[1];
+        String sol = CACHE.solve(cc, c -> {
+            searched[0] = true;
+            try {
+                SolveResult r = SCHEDULER.solve(c);
+                if (!r.isSolved()) timedOut(r, inputId);
+                return r.isSolved() ? r.getSolution() : "";
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return "";
             }
+        });
+        ev.end();
+        if (ev.shouldCommit()) {
+            ev.inputId = inputId;
+            ev.solved = sol != null && !sol.isEmpty();
+            ev.solutionLength = ev.solved ? sol.split(" ").length : 0;
+            ev.cacheHit = !searched[0];
+            ev.commit();
         }
-        TwoPhaseIDA.BLOCK_OPPOSITE_IN_PHASE2 = false;
-        String fallback = new TwoPhaseIDA().solve(new CubieCube(cc));
-        return fallback == null ? "" : fallback;
+        return sol;
     }
 
-    // Phase-1 heuristic estimate
-    private static int estimatePhase1Heuristic(CubieCube c) {
-        int co = c.getCornerOriCoord();
-        int eo = c.getEdgeOriCoord();
-        int sl = c.getUDSliceCoord();
-        int hCo = LightPruningTables.coSlicePrun[co * LightPruningTables.N_SLICE + sl];
-        int hEo = LightPruningTables.eoSlicePrun[eo * LightPruningTables.N_SLICE + sl];
-        if (hCo < 0) hCo = 0;
-        if (hEo < 0) hEo = 0;
-        return Math.max(hCo, hEo);
+    private static void timedOut(SolveResult r, long inputId) {
+        SolverEvents.SolveTimeout ev = new SolverEvents.SolveTimeout();
+        if (!ev.isEnabled()) return;
+        ev.inputId = inputId;
+        ev.status = r.getStatus().name();
+        ev.nodes = r.getNodes();
+        ev.elapsedNanos = r.getElapsedNanos();
+        ev.partialLength = r.getPartial().isEmpty() ? 0 : r.getPartial().split(" ").length;
+        ev.partialLowerBound = r.getPartialLowerBound();
+        ev.commit();
     }
 
 
@@ -115,25 +220,17 @@ public class Solver {
             f[r*3+2]=line.charAt(2);
         }
 
-        // middle rows
+        // middle rows: L F R B side by side, whitespace between blocks allowed
         for (int r = 0; r < 3; r++) {
-            String raw = n.get(3+r).replaceAll("\\s+", "");
-
-            f[9 + r*3 + 0] = raw.charAt(0);
-            f[9 + r*3 + 1] = raw.charAt(1);
-            f[9 + r*3 + 2] = raw.charAt(2);
-
-            f[18 + r*3 + 0] = raw.charAt(3);
-            f[18 + r*3 + 1] = raw.charAt(4);
-            f[18 + r*3 + 2] = raw.charAt(5);
-
-            f[27 + r*3 + 0] = raw.charAt(6);
-            f[27 + r*3 + 1] = raw.charAt(7);
-            f[27 + r*3 + 2] = raw.charAt(8);
-
-            f[36 + r*3 + 0] = raw.charAt(9);
-            f[36 + r*3 + 1] = raw.charAt(10);
-            f[36 + r*3 + 2] = raw.charAt(11);
+            String raw = n.get(3+r);
+            int k = 0;
+            for (int i = 0; i < raw.length() && k < 12; i++) {
+                char ch = raw.charAt(i);
+                if (Character.isWhitespace(ch)) continue;
+                f[9 + (k / 3) * 9 + r*3 + k % 3] = ch;
+                k++;
+            }
+            if (k < 12) throw new IllegalArgumentException("Net row " + (4 + r) + " has fewer than 12 stickers");
         }
 
         // D
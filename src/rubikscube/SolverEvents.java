@@ -0,0 +1,121 @@
+package rubikscube;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+import jdk.jfr.Timespan;
+
+/**
+ * Java Flight Recorder events for table builds and the solve lifecycle, under the
+ * "Rubik's Cube" category of a recording. Without a recording JFR leaves begin()/commit()
+ * as empty checks and the JIT removes the event objects, so the hooks cost nothing;
+ * fields are only filled after end() and shouldCommit() (which also applies a threshold).
+ * Example: java -XX:StartFlightRecording=filename=solve.jfr rubikscube.Solver in out
+ */
+public final class SolverEvents {
+
+    private SolverEvents() { }
+
+    @Name("rubikscube.TableBuild")
+    @Label("Table Build")
+    @Category({"Rubik's Cube", "Tables"})
+    @Description("One MoveTables / LightPruningTables table built")
+    @StackTrace(false)
+    public static final class TableBuild extends Event {
+        @Label("Table")
+        String table;
+        @Label("Entries")
+        long entries;
+        @Label("Size")
+        @DataAmount
+        long bytes;
+    }
+
+    @Name("rubikscube.Solve")
+    @Label("Solve")
+    @Category({"Rubik's Cube", "Solve"})
+    @Description("Solver.solveOne: one input cube, through the symmetry cache and strategy scheduler")
+    @StackTrace(false)
+    public static final class Solve extends Event {
+        @Label("Input Id")
+        long inputId;
+        @Label("Solved")
+        boolean solved;
+        @Label("Solution Length")
+        int solutionLength;
+        @Label("Cache Hit")
+        boolean cacheHit;
+    }
+
+    @Name("rubikscube.Search")
+    @Label("Two-Phase Search")
+    @Category({"Rubik's Cube", "Solve"})
+    @Description("TwoPhaseIDA.solve; phase-1 time is the time until the first phase-1 endpoint")
+    @StackTrace(false)
+    public static final class Search extends Event {
+        @Label("Status")
+        String status;
+        @Label("Phase-1 Length")
+        int phase1Length;
+        @Label("Phase-2 Length")
+        int phase2Length;
+        @Label("Phase-1 Nodes")
+        long phase1Nodes;
+        @Label("Phase-2 Nodes")
+        long phase2Nodes;
+        @Label("Phase-1 Time")
+        @Timespan
+        long phase1Nanos;
+    }
+
+    @Name("rubikscube.Phase2Search")
+    @Label("Phase-2 Search")
+    @Category({"Rubik's Cube", "Solve"})
+    @Description("Phase 2 from one phase-1 endpoint; short ones are dropped by the default threshold")
+    @StackTrace(false)
+    @Threshold("1 ms")
+    public static final class Phase2Search extends Event {
+        @Label("Phase-1 Length")
+        int phase1Length;
+        @Label("Found")
+        boolean found;
+        @Label("Phase-2 Length")
+        int phase2Length;
+    }
+
+    @Name("rubikscube.SolveTimeout")
+    @Label("Solve Timeout")
+    @Category({"Rubik's Cube", "Solve"})
+    @Description("Solver.solveOne ended without a solution (budget, node limit or cancellation)")
+    @StackTrace(false)
+    public static final class SolveTimeout extends Event {
+        @Label("Input Id")
+        long inputId;
+        @Label("Status")
+        String status;
+        @Label("Nodes")
+        long nodes;
+        @Label("Search Time")
+        @Timespan
+        long elapsedNanos;
+        @Label("Partial Length")
+        int partialLength;
+        @Label("Partial Lower Bound")
+        int partialLowerBound;
+    }
+
+    // TableBuild for one table, begun by the caller before building it
+    static void tableBuilt(TableBuild e, String table, long entries, long bytes) {
+        e.end();
+        if (!e.shouldCommit()) return;
+        e.table = table;
+        e.entries = entries;
+        e.bytes = bytes;
+        e.commit();
+    }
+}
@@ -0,0 +1,241 @@
+package rubikscube;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Picks a TwoPhaseIDA configuration per cube from the latencies of earlier solves and
+ * hedges slow solves. History is kept per strategy and per feature bucket, where the
+ * features are the phase-1 estimate and the corner-permutation phase-2 estimate of the
+ * start cube. The strategy with the lowest expected latency runs first. If it is still
+ * running when its observed p95 has passed, or returns without a solution, the runner-up
+ * starts on a second thread and the first solution from either one wins. The other attempt
+ * is cancelled. Each strategy is charged its own run time, so the history says how fast it
+ * solves, not how long the caller waited. An attempt that is cancelled or ends without a
+ * solution only gives a lower bound; those censored samples are kept apart from the mean
+ * and p95, and a strategy with no completed history is ranked by its largest one.
+ */
+public class StrategyScheduler implements AutoCloseable {
+
+    public enum Strategy {
+        PLAIN {
+            void configure(TwoPhaseIDA ida) { }
+        },
+        BLOCK_OPPOSITE {
+            void configure(TwoPhaseIDA ida) { ida.setBlockOppositeInPhase2(true); }
+        },
+        FRINGE {
+            void configure(TwoPhaseIDA ida) { ida.setUseFringePhase2(true); }
+        };
+
+        abstract void configure(TwoPhaseIDA ida);
+    }
+
+    // samples kept per (bucket, strategy); older ones are overwritten
+    private static final int WINDOW = 64;
+    // fewer samples than this in a bucket and the strategy-wide history is used instead
+    private static final int MIN_SAMPLES = 5;
+    // hedge delay before any history exists (the old fixed 8 s pass)
+    private static final long DEFAULT_HEDGE_NANOS = TimeUnit.SECONDS.toNanos(8);
+
+    private static final Strategy[] STRATEGIES = Strategy.values();
+
+    // Last WINDOW latencies of one strategy's solves, and apart from them the last WINDOW
+    // censored samples (run time of attempts cancelled or ended without a solution)
+    static final class LatencyWindow {
+        private final long[] samples = new long[WINDOW];
+        private int count;
+        private long total;
+        private final long[] censored = new long[WINDOW];
+        private int censoredCount;
+
+        void addCensored(long nanos) {
+            censored[censoredCount++ % WINDOW] = nanos;
+        }
+
+        long censoredMax() {
+            long max = 0;
+            for (int i = 0; i < Math.min(censoredCount, WINDOW); i++) max = Math.max(max, censored[i]);
+            return max;
+        }
+
+        void add(long nanos) {
+            int i = count % WINDOW;
+            if (count >= WINDOW) total -= samples[i];
+            samples[i] = nanos;
+            total += nanos;
+            count++;
+        }
+
+        int size() { return Math.min(count, WINDOW); }
+
+        long mean() { return size() == 0 ? 0 : total / size(); }
+
+        long percentile(double q) {
+            int n = size();
+            if (n == 0) return 0;
+            long[] sorted = Arrays.copyOf(samples, n);
+            Arrays.sort(sorted);
+            return sorted[Math.min(n - 1, (int) Math.ceil(q * n) - 1)];
+        }
+    }
+
+    private record Attempt(Strategy strategy, SolveResult result) { }
+
+    private final ExecutorService pool;
+    private final Map<Integer, LatencyWindow[]> byBucket = new HashMap<>();
+    private final LatencyWindow[] global = newWindows();
+    private long hedges;
+    private long hedgeWins;
+
+    public StrategyScheduler() {
+        // the primary attempt and at most one hedge at a time
+        this.pool = Executors.newFixedThreadPool(2, r -> {
+            Thread t = new Thread(r, "strategy-scheduler");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public SolveResult solve(CubieCube cube) throws InterruptedException {
+        MoveTables.init();
+        LightPruningTables.buildAllBlocking();
+        int bucket = bucket(cube);
+        Strategy[] order = rank(bucket);
+        CubieCube start = new CubieCube(cube);
+        // start time of each attempt still running
+        Map<Strategy, Long> started = new EnumMap<>(Strategy.class);
+
+        CompletionService<Attempt> done = new ExecutorCompletionService<>(pool);
+        Map<Strategy, SolveBudget> running = new EnumMap<>(Strategy.class);
+        started.put(order[0], System.nanoTime());
+        launch(done, order[0], start, running);
+        int pending = 1;
+        boolean hedged = false;
+        SolveResult last = null;
+        try {
+            Future<Attempt> f = done.poll(hedgeDelay(bucket, order[0]), TimeUnit.NANOSECONDS);
+            if (f == null && order.length > 1) {
+                hedged = true;
+                synchronized (this) { hedges++; }
+                started.put(order[1], System.nanoTime());
+                launch(done, order[1], start, running);
+                pending++;
+            }
+            while (pending > 0) {
+                if (f == null) f = done.take();
+                Attempt a = get(f);
+                f = null;
+                pending--;
+                started.remove(a.strategy());
+                last = a.result();
+                if (a.result().isSolved()) {
+                    record(bucket, a.strategy(), a.result().getElapsedNanos());
+                    if (hedged && a.strategy() == order[1]) synchronized (this) { hedgeWins++; }
+                    // the loser is cancelled below; it ran at least this long
+                    long now = System.nanoTime();
+                    for (Map.Entry<Strategy, Long> loser : started.entrySet()) {
+                        recordCensored(bucket, loser.getKey(), now - loser.getValue());
+                    }
+                    return a.result();
+                }
+                recordCensored(bucket, a.strategy(), a.result().getElapsedNanos());
+                if (!hedged && order.length > 1) {
+                    // the primary gave up before the hedge delay: the runner-up still gets its turn
+                    hedged = true;
+                    started.put(order[1], System.nanoTime());
+                    launch(done, order[1], start, running);
+                    pending++;
+                }
+            }
+            return last;
+        } finally {
+            for (SolveBudget b : running.values()) b.cancel();
+        }
+    }
+
+    private void launch(CompletionService<Attempt> done, Strategy s, CubieCube start,
+                        Map<Strategy, SolveBudget> running) {
+        SolveBudget budget = SolveBudget.unlimited();
+        running.put(s, budget);
+        done.submit(() -> {
+            TwoPhaseIDA ida = new TwoPhaseIDA();
+            s.configure(ida);
+            return new Attempt(s, ida.solve(new CubieCube(start), budget));
+        });
+    }
+
+    private static Attempt get(Future<Attempt> f) throws InterruptedException {
+        try {
+            return f.get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Solve attempt failed", e.getCause());
+        }
+    }
+
+    // Strategies by expected latency. One with too little history counts as 0 so it gets
+    // tried; ties keep the old rule's preference (opposite blocking for deep phase 1).
+    synchronized Strategy[] rank(int bucket) {
+        Strategy[] order = STRATEGIES.clone();
+        boolean deep = (bucket >> 4) >= 7;
+        long[] expected = new long[STRATEGIES.length];
+        int[] prior = new int[STRATEGIES.length];
+        for (Strategy s : STRATEGIES) {
+            LatencyWindow w = history(bucket, s);
+            // without enough solves, the longest censored attempt is a lower bound (0 if none)
+            expected[s.ordinal()] = w != null ? w.mean() : censoredBound(bucket, s);
+            prior[s.ordinal()] = s == Strategy.BLOCK_OPPOSITE ? (deep ? 0 : 1) : s == Strategy.PLAIN ? (deep ? 1 : 0) : 2;
+        }
+        Arrays.sort(order, Comparator.<Strategy>comparingLong(s -> expected[s.ordinal()])
+                .thenComparingInt(s -> prior[s.ordinal()]));
+        return order;
+    }
+
+    private synchronized long hedgeDelay(int bucket, Strategy s) {
+        LatencyWindow w = history(bucket, s);
+        return w == null ? DEFAULT_HEDGE_NANOS : Math.max(1, w.percentile(0.95));
+    }
+
+    // Bucket history if it has enough samples, else strategy-wide history, else null
+    private LatencyWindow history(int bucket, Strategy s) {
+        LatencyWindow[] w = byBucket.get(bucket);
+        if (w != null && w[s.ordinal()].size() >= MIN_SAMPLES) return w[s.ordinal()];
+        return global[s.ordinal()].size() >= MIN_SAMPLES ? global[s.ordinal()] : null;
+    }
+
+    private long censoredBound(int bucket, Strategy s) {
+        LatencyWindow[] w = byBucket.get(bucket);
+        return w == null ? 0 : w[s.ordinal()].censoredMax();
+    }
+
+    synchronized void record(int bucket, Strategy s, long nanos) {
+        byBucket.computeIfAbsent(bucket, k -> newWindows())[s.ordinal()].add(nanos);
+        global[s.ordinal()].add(nanos);
+    }
+
+    synchronized void recordCensored(int bucket, Strategy s, long nanos) {
+        byBucket.computeIfAbsent(bucket, k -> newWindows())[s.ordinal()].addCensored(nanos);
+        global[s.ordinal()].addCensored(nanos);
+    }
+
+    private static LatencyWindow[] newWindows() {
+        LatencyWindow[] w = new LatencyWindow[STRATEGIES.length];
+        for (int i = 0; i < w.length; i++) w[i] = new LatencyWindow();
+        return w;
+    }
+
+    // Phase-1 estimate (capped at 15) in the high bits, corner-permutation phase-2 estimate (capped at 15) in the low four
+    static int bucket(CubieCube c) {
+        int h1 = TwoPhaseIDA.heuristicPhase1Coord(c.getCornerOriCoord(), c.getEdgeOriCoord(), c.getUDSliceCoord());
+        int hCp = Math.max(0, LightPruningTables.cpPrunP2[c.getCornerPermCoord()]);
+        return Math.min(h1, 15) << 4 | Math.min(hCp, 15);
+    }
+
+    public synchronized long getHedges() { return hedges; }
+    public synchronized long getHedgeWins() { return hedgeWins; }
+
+    @Override
+    public void close() {
+        pool.shutdownNow();
+    }
+}
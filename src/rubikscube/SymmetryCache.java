@@ -0,0 +1,294 @@
+package rubikscube;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Bounded LRU cache of solutions keyed by symmetry class. A cube is conjugated by all 48
+ * cube symmetries (rotations and mirror images), and optionally its inverse as well.
+ * The smallest packed state is the key. Solutions are stored for that canonical state and
+ * mapped back move by move, since conjugating a face turn by a symmetry gives a face turn.
+ * Lookups and inserts are thread safe; canonicalisation runs outside the lock.
+ */
+public class SymmetryCache {
+
+    public static final int N_SYM = 48;
+
+    // SYM_CP/CO/EP/EO[s]: symmetry cube s; mirrored ones carry corner orientations 3..5
+    private static final byte[][] SYM_CP = new byte[N_SYM][8];
+    private static final byte[][] SYM_CO = new byte[N_SYM][8];
+    private static final byte[][] SYM_EP = new byte[N_SYM][12];
+    private static final byte[][] SYM_EO = new byte[N_SYM][12];
+    // INV_SYM[s]: index of the inverse of symmetry s
+    private static final int[] INV_SYM = new int[N_SYM];
+    // CONJ_MOVE[s][m]: the move equal to S^-1 * m * S, moves as move * 3 + power - 1
+    private static final byte[][] CONJ_MOVE = new byte[N_SYM][18];
+
+    static {
+        // Basic symmetries: 120 degrees about the URF-DBL diagonal, 180 degrees about F,
+        // 90 degrees about U, and the mirror through the U, D, F, B centres
+        byte[][] urf3 = {
+                { 0, 4, 5, 1, 3, 7, 6, 2 }, { 1, 2, 1, 2, 2, 1, 2, 1 },
+                { 1, 8, 5, 9, 3, 11, 7, 10, 0, 4, 6, 2 }, { 1, 0, 1, 0, 1, 0, 1, 0, 1, 1, 1, 1 } };
+        byte[][] f2 = {
+                { 5, 4, 7, 6, 1, 0, 3, 2 }, new byte[8],
+                { 6, 5, 4, 7, 2, 1, 0, 3, 9, 8, 11, 10 }, new byte[12] };
+        byte[][] u4 = {
+                { 3, 0, 1, 2, 7, 4, 5, 6 }, new byte[8],
+                { 3, 0, 1, 2, 7, 4, 5, 6, 11, 8, 9, 10 }, { 0, 0, 0, 0, 0, 0, 0, 0, 1, 1, 1, 1 } };
+        byte[][] lr2 = {
+                { 1, 0, 3, 2, 5, 4, 7, 6 }, { 3, 3, 3, 3, 3, 3, 3, 3 },
+                { 2, 1, 0, 3, 6, 5, 4, 7, 9, 8, 11, 10 }, new byte[12] };
+
+        byte[][] cur = identity();
+        int idx = 0;
+        for (int a = 0; a < 3; a++) {
+            for (int b = 0; b < 2; b++) {
+                for (int c = 0; c < 4; c++) {
+                    for (int d = 0; d < 2; d++) {
+                        SYM_CP[idx] = cur[0].clone(); SYM_CO[idx] = cur[1].clone();
+                        SYM_EP[idx] = cur[2].clone(); SYM_EO[idx] = cur[3].clone();
+                        idx++;
+                        cur = multiply(cur, lr2);
+                    }
+                    cur = multiply(cur, u4);
+                }
+                cur = multiply(cur, f2);
+            }
+            cur = multiply(cur, urf3);
+        }
+
+        for (int s = 0; s < N_SYM; s++) {
+            INV_SYM[s] = -1;
+            for (int t = 0; t < N_SYM; t++) {
+                if (isIdentity(multiply(sym(s), sym(t)))) INV_SYM[s] = t;
+            }
+            if (INV_SYM[s] < 0) throw new IllegalStateException("Symmetry " + s + " has no inverse");
+        }
+
+        byte[][][] moves = new byte[18][][];
+        for (int m = 0; m < 18; m++) {
+            CubieCube mc = new CubieCube();
+            mc.applyMove(m / 3, m % 3 + 1);
+            moves[m] = new byte[][] { mc.cp, mc.co, mc.ep, mc.eo };
+        }
+        for (int s = 0; s < N_SYM; s++) {
+            for (int m = 0; m < 18; m++) {
+                byte[][] conj = multiply(multiply(sym(INV_SYM[s]), moves[m]), sym(s));
+                int found = -1;
+                for (int k = 0; k < 18 && found < 0; k++) if (same(conj, moves[k])) found = k;
+                if (found < 0) throw new IllegalStateException("Symmetry " + s + " does not map move " + m + " to a move");
+                CONJ_MOVE[s][m] = (byte) found;
+            }
+        }
+    }
+
+    private static byte[][] identity() {
+        CubieCube id = new CubieCube();
+        return new byte[][] { id.cp, id.co, id.ep, id.eo };
+    }
+
+    private static byte[][] sym(int s) {
+        return new byte[][] { SYM_CP[s], SYM_CO[s], SYM_EP[s], SYM_EO[s] };
+    }
+
+    private static boolean isIdentity(byte[][] x) {
+        return same(x, identity());
+    }
+
+    private static boolean same(byte[][] x, byte[][] y) {
+        for (int i = 0; i < 4; i++) if (!java.util.Arrays.equals(x[i], y[i])) return false;
+        return true;
+    }
+
+    // a * b with mirrored corner orientations (3..5), as {cp, co, ep, eo}
+    private static byte[][] multiply(byte[][] a, byte[][] b) {
+        byte[][] out = { new byte[8], new byte[8], new byte[12], new byte[12] };
+        for (int i = 0; i < 8; i++) {
+            out[0][i] = a[0][b[0][i]];
+            out[1][i] = (byte) cornerOri(a[1][b[0][i]], b[1][i]);
+        }
+        for (int i = 0; i < 12; i++) {
+            out[2][i] = a[2][b[2][i]];
+            out[3][i] = (byte) (a[3][b[2][i]] ^ b[3][i]);
+        }
+        return out;
+    }
+
+    // Orientation of a product corner when either factor may be mirrored
+    private static int cornerOri(int oa, int ob) {
+        if (oa < 3 && ob < 3) return (oa + ob) % 3;
+        if (oa < 3) return (oa + ob) >= 6 ? oa + ob - 3 : oa + ob;
+        if (ob < 3) return (oa - ob) < 3 ? oa - ob + 3 : oa - ob;
+        return (oa - ob) < 0 ? oa - ob + 3 : oa - ob;
+    }
+
+    // S_s * c * S_s^-1 into out (a regular cube: the mirrors cancel)
+    static void conjugate(CubieCube c, int s, CubieCube out) {
+        byte[] scp = SYM_CP[s], sco = SYM_CO[s], sep = SYM_EP[s], seo = SYM_EO[s];
+        int t = INV_SYM[s];
+        byte[] tcp = SYM_CP[t], tco = SYM_CO[t], tep = SYM_EP[t], teo = SYM_EO[t];
+        for (int i = 0; i < 8; i++) {
+            // (S * c)[j] then * S^-1 at slot i, j = tcp[i]
+            int j = tcp[i];
+            int k = c.cp[j];
+            out.cp[i] = scp[k];
+            int ori = cornerOri(cornerOri(sco[k], c.co[j]), tco[i]);
+            out.co[i] = (byte) ori;
+        }
+        for (int i = 0; i < 12; i++) {
+            int j = tep[i];
+            int k = c.ep[j];
+            out.ep[i] = sep[k];
+            out.eo[i] = (byte) (seo[k] ^ c.eo[j] ^ teo[i]);
+        }
+    }
+
+    // PackedCube layout; both halves stay below 2^60, so signed comparison orders them
+    private record Key(long corners, long edges) { }
+
+    // Canonical form: the symmetry (and inversion) that produced the smallest key
+    private record Canonical(Key key, int sym, boolean inverted) { }
+
+    private final int capacity;
+    private final boolean useInverse;
+    private final Map<Key, byte[]> map;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public SymmetryCache(int capacity, boolean useInverse) {
+        if (capacity < 1) throw new IllegalArgumentException("capacity must be >= 1");
+        this.capacity = capacity;
+        this.useInverse = useInverse;
+        this.map = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, byte[]> eldest) {
+                if (size() <= SymmetryCache.this.capacity) return false;
+                evictions.incrementAndGet();
+                return true;
+            }
+        };
+    }
+
+    // Cached solution for c, otherwise solver's (cached when non-empty)
+    public String solve(CubieCube c, Function<CubieCube, String> solver) {
+        Canonical canon = canonical(c);
+        String hit = lookup(canon);
+        if (hit != null) return hit;
+        String sol = solver.apply(new CubieCube(c));
+        if (sol != null && !sol.isEmpty()) store(canon, sol);
+        return sol;
+    }
+
+    // Solution for c, or null on a miss
+    public String get(CubieCube c) {
+        return lookup(canonical(c));
+    }
+
+    public void put(CubieCube c, String solution) {
+        store(canonical(c), solution);
+    }
+
+    private String lookup(Canonical canon) {
+        byte[] stored;
+        synchronized (map) {
+            stored = map.get(canon.key());
+        }
+        if (stored == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        // stored solves S c S^-1 (or S c^-1 S^-1); conjugate back, then undo the inversion
+        int n = stored.length;
+        byte[] sol = new byte[n];
+        for (int i = 0; i < n; i++) sol[i] = CONJ_MOVE[canon.sym()][stored[i]];
+        if (canon.inverted()) sol = invertSequence(sol);
+        return toString(sol);
+    }
+
+    private void store(Canonical canon, String solution) {
+        byte[] sol = parse(solution);
+        if (canon.inverted()) sol = invertSequence(sol);
+        int inv = INV_SYM[canon.sym()];
+        for (int i = 0; i < sol.length; i++) sol[i] = CONJ_MOVE[inv][sol[i]];
+        synchronized (map) {
+            map.put(canon.key(), sol);
+        }
+    }
+
+    private Canonical canonical(CubieCube c) {
+        CubieCube conj = new CubieCube();
+        Key best = null;
+        int bestSym = 0;
+        boolean bestInv = false;
+        CubieCube inverse = null;
+        if (useInverse) {
+            inverse = new CubieCube();
+            c.inverse(inverse);
+        }
+        for (int pass = 0; pass < (useInverse ? 2 : 1); pass++) {
+            CubieCube src = pass == 0 ? c : inverse;
+            for (int s = 0; s < N_SYM; s++) {
+                conjugate(src, s, conj);
+                long corners = 0, edges = 0;
+                for (int i = 7; i >= 0; i--) corners = corners << 5 | conj.cp[i] << 2 | conj.co[i];
+                if (best != null && corners > best.corners()) continue;
+                for (int i = 11; i >= 0; i--) edges = edges << 5 | conj.ep[i] << 1 | conj.eo[i];
+                if (best == null || corners < best.corners() || edges < best.edges()) {
+                    best = new Key(corners, edges);
+                    bestSym = s;
+                    bestInv = pass == 1;
+                }
+            }
+        }
+        return new Canonical(best, bestSym, bestInv);
+    }
+
+    // Reversed order, each move inverted: solves c^-1 when the input solves c
+    private static byte[] invertSequence(byte[] seq) {
+        byte[] out = new byte[seq.length];
+        for (int i = 0; i < seq.length; i++) {
+            int m = seq[seq.length - 1 - i];
+            out[i] = (byte) (m / 3 * 3 + (2 - m % 3));
+        }
+        return out;
+    }
+
+    private static byte[] parse(String seq) {
+        int[] mv = new int[seq.length()], pw = new int[seq.length()];
+        int n = Moves.parseSequence(seq, mv, pw);
+        byte[] out = new byte[n];
+        for (int i = 0; i < n; i++) out[i] = (byte) (mv[i] * 3 + pw[i] - 1);
+        return out;
+    }
+
+    private static String toString(byte[] seq) {
+        StringBuilder sb = new StringBuilder();
+        for (byte m : seq) {
+            if (sb.length() > 0) sb.append(' ');
+            sb.append(Moves.moveToString(m / 3, m % 3 + 1));
+        }
+        return sb.toString();
+    }
+
+    public long getHits() { return hits.get(); }
+    public long getMisses() { return misses.get(); }
+    public long getEvictions() { return evictions.get(); }
+    public int getCapacity() { return capacity; }
+
+    public int size() {
+        synchronized (map) {
+            return map.size();
+        }
+    }
+
+    public void clear() {
+        synchronized (map) {
+            map.clear();
+        }
+    }
+}
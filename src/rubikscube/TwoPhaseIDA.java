@@ -1,6 +1,7 @@
 package rubikscube;
 
 import java.util.*;
+import java.util.function.IntSupplier;
 
 public class TwoPhaseIDA {
 
@@ -13,86 +14,346 @@ public class TwoPhaseIDA {
     private int phase2Length;
 
     private CubieCube startCube = null;
+    // start state and replay scratch for the phase-2 goal check
+    private PackedCube startPacked = new PackedCube();
+    private final PackedCube replay = new PackedCube();
 
+    // Process-wide defaults, read when an instance is created; use the setters to change one solver
     public static boolean BLOCK_OPPOSITE_IN_PHASE2 = false;
 
+    // Optional phase-1 dead-end table shared by all solves (null = disabled)
+    public static Phase1TranspositionTable PHASE1_TT = null;
+
+    // Phase 2 through FringePhase2Search; falls back to plain IDA* past the node cap
+    public static boolean USE_FRINGE_PHASE2 = false;
+    private static final int FRINGE_NODE_CAP = 1 << 21;
+
+    private boolean blockOpposite = BLOCK_OPPOSITE_IN_PHASE2;
+    private boolean useFringe = USE_FRINGE_PHASE2;
+
+    private FringePhase2Search fringe;
+    private long fringeFallbacks;
+
+    private long phase1Nodes;
+    private long phase2Nodes;
+    private long phase1Nanos;
+    private long phase1Start;
+    private long phase1Leaves;
+
+    // Upper bound on phase-1 + phase-2 length; endpoints that cannot meet it are skipped
+    private int maxLength = Integer.MAX_VALUE;
+
+    // Scratch cube for decoding phase-2 edge coordinates at phase-1 endpoints
+    private final CubieCube leafCube = new CubieCube();
+
+    // Per-term attribution of the lower bounds (-Dheuristic.profile=true, see HeuristicProfiler)
+    private final HeuristicProfiler profiler = HeuristicProfiler.ENABLED ? new HeuristicProfiler() : null;
+
+    // Iteration-level event ring, dumped after slow solves (null = off, see SearchTrace)
+    private SearchTrace trace = SearchTrace.forSolver();
+
+    public void setBlockOppositeInPhase2(boolean block) { this.blockOpposite = block; }
+    public boolean isBlockOppositeInPhase2() { return blockOpposite; }
+    public void setUseFringePhase2(boolean use) { this.useFringe = use; }
+    public boolean isUseFringePhase2() { return useFringe; }
+
+    public HeuristicProfiler getHeuristicProfiler() { return profiler; }
+    public void setTrace(SearchTrace trace) { this.trace = trace; }
+    public SearchTrace getTrace() { return trace; }
+
+    public void setMaxLength(int maxLength) { this.maxLength = maxLength; }
+    public int getMaxLength() { return maxLength; }
+
+    // Weighted IDA* (f = g + w * h) in both phases, in 1/16 steps. With w > 1 each phase
+    // returns at most ceil(w * optimal) moves for its sub-problem, usually much sooner.
+    private static final int WEIGHT_ONE = 16;
+    private int weight16 = WEIGHT_ONE;
+
+    public void setWeight(double w) {
+        if (!(w >= 1.0)) throw new IllegalArgumentException("weight must be >= 1: " + w);
+        this.weight16 = (int) Math.round(w * WEIGHT_ONE);
+    }
+    public double getWeight() { return weight16 / (double) WEIGHT_ONE; }
+
+    // Optional move cost model; null = face-turn metric. Limits, g and h are then in cost units.
+    private MoveCostModel costModel = null;
+    private CostPruningTables costTables = null;
+    // moves phase 2 may still append, so the move arrays cannot overflow under cheap metrics
+    private int phase2MoveCap = MAX_DEPTH;
+
+    public void setCostModel(MoveCostModel costModel) { this.costModel = costModel; }
+    public MoveCostModel getCostModel() { return costModel; }
+
+    // Active budget: polled every checkInterval nodes; stopped latches once it runs out
+    private SolveBudget budget = SolveBudget.UNLIMITED;
+    private long deadlineNanos = Long.MAX_VALUE;
+    private int pollCountdown;
+    private boolean stopped;
+    private SolveResult.Status stopReason;
+
+    // best unfinished phase-1 endpoint, reported when the budget runs out
+    private final int[] partialMoves = new int[MAX_DEPTH];
+    private final int[] partialPowers = new int[MAX_DEPTH];
+    private int partialLength;
+    private int partialBound = -1;
+
+    // Unbudgeted solve; still stops if the thread is interrupted. Returns "" when unsolved.
     public String solve(CubieCube start) {
+        return solve(start, SolveBudget.UNLIMITED).getSolution();
+    }
+
+    public SolveResult solve(CubieCube start, SolveBudget budget) {
 
         MoveTables.init();
         LightPruningTables.buildAllBlocking();
 
+        SolverEvents.Search ev = new SolverEvents.Search();
+        ev.begin();
+        SolveResult result = search(start, budget);
+        if (trace != null) traceEnd(start, result);
+        ev.end();
+        if (ev.shouldCommit()) {
+            ev.status = result.getStatus().name();
+            ev.phase1Length = result.isSolved() ? phase1Length : 0;
+            ev.phase2Length = result.isSolved() ? phase2Length : 0;
+            ev.phase1Nodes = phase1Nodes;
+            ev.phase2Nodes = phase2Nodes;
+            ev.phase1Nanos = phase1Nanos;
+            ev.commit();
+        }
+        return result;
+    }
 
+    private void traceEnd(CubieCube start, SolveResult result) {
+        trace.add(SearchTrace.SOLVE_END, result.getStatus().ordinal(), result.isSolved() ? phase1Length : 0,
+                result.isSolved() ? phase2Length : 0, phase1Nodes + phase2Nodes);
+        if (!SearchTrace.isSlow(result.getElapsedNanos())) return;
+        try {
+            System.err.println("search trace written to " + trace.dump(start, result.getElapsedNanos()));
+        } catch (java.io.IOException e) {
+            System.err.println("could not write search trace: " + e.getMessage());
+        }
+    }
+
+    private SolveResult search(CubieCube start, SolveBudget budget) {
+        long t0 = System.nanoTime();
+        if (trace != null) trace.reset(t0);
+        beginBudget(budget, t0);
         this.startCube = new CubieCube(start);
+        this.startPacked = PackedCube.from(start);
+        phase1Nodes = 0;
+        phase2Nodes = 0;
+        phase1Nanos = 0;
+        phase1Leaves = 0;
+        fringeFallbacks = 0;
+        costTables = costModel == null ? null : costModel.tables();
+
+        partialLength = 0;
+        partialBound = -1;
 
-        if (start.isSolved()) return "";
+        if (start.isSolved()) return new SolveResult(SolveResult.Status.SOLVED, "", "", -1, 0, System.nanoTime() - t0);
 
         int startCO = start.getCornerOriCoord();
         int startEO = start.getEdgeOriCoord();
         int startSL = start.getUDSliceCoord();
-
-        // Phase-1 iterative deepening on CO/EO/SLICE
-        boolean phase1Found = false;
-        int h1Start = heuristicPhase1Coord(startCO, startEO, startSL);
-        for (int depth1 = h1Start; depth1 <= MAX_DEPTH; depth1++) {
-            if (Thread.currentThread().isInterrupted()) break;
-            if (searchPhase1Coord(startCO, startEO, startSL, 0, depth1, -1)) {
-                phase1Found = true;
-                break;
+        int startCP = start.getCornerPermCoord();
+        int startU4 = start.getEdge4PosPermCoord(0);
+        int startD4 = start.getEdge4PosPermCoord(4);
+
+        // Phase-1 iterative deepening on CO/EO/SLICE; every accepted endpoint runs
+        // phase 2 (CP/UD edges, U/D any, others half-turn) before phase 1 moves on.
+        // Under a cost model the limit is the total cost of both phases.
+        boolean found = false;
+        phase1Start = System.nanoTime();
+        phase2Length = 0;
+        int h1Start = h1(startCO, startEO, startSL);
+        int savedMaxLength = maxLength;
+        maxLength = Math.min(maxLength, budget.getMaxLength());
+        if (trace != null) trace.add(SearchTrace.SOLVE_START, h1Start, Math.min(maxLength, 255), 0, 0);
+        try {
+            int maxLimit1 = Math.min(MAX_DEPTH, maxLength) * (costModel == null ? 1 : 2 * costModel.maxCost());
+            for (int limit1 = h1Start; limit1 <= maxLimit1; limit1++) {
+                if (stopped) break;
+                if (trace != null) trace.add(SearchTrace.P1_ITERATION, limit1, 0, 0, phase1Nodes + phase2Nodes);
+                found = searchPhase1Coord(startCO, startEO, startSL, startCP, startU4, startD4, 0, 0, limit1, -1);
+                if (trace != null) trace.add(SearchTrace.P1_ITERATION_END, limit1, found ? 1 : 0, 0, phase1Nodes + phase2Nodes);
+                if (found) break;
             }
+        } finally {
+            maxLength = savedMaxLength;
         }
 
-        if (!phase1Found) return "";
+        long nodes = phase1Nodes + phase2Nodes;
+        long elapsed = System.nanoTime() - t0;
+        String sol = found ? assembleSolution(start) : "";
+        if (!sol.isEmpty()) return new SolveResult(SolveResult.Status.SOLVED, sol, "", -1, nodes, elapsed);
+        SolveResult.Status status = stopped ? stopReason : SolveResult.Status.NO_SOLUTION;
+        return new SolveResult(status, "", movesToString(partialMoves, partialPowers, partialLength),
+                partialBound, nodes, elapsed);
+    }
+
+    private void beginBudget(SolveBudget budget, long startNanos) {
+        this.budget = budget;
+        deadlineNanos = budget.deadlineFrom(startNanos);
+        pollCountdown = budget.getCheckInterval();
+        stopped = false;
+        stopReason = null;
+    }
+
+    // Called once per node; only every checkInterval-th call looks at the clock
+    private boolean outOfBudget() {
+        if (stopped) return true;
+        if (--pollCountdown > 0) return false;
+        pollCountdown = budget.getCheckInterval();
+        return pollBudget(0);
+    }
 
+    private boolean pollBudget(long extraNodes) {
+        if (stopped) return true;
+        SolveResult.Status reason = budget.check(phase1Nodes + phase2Nodes + extraNodes, deadlineNanos);
+        // interruption still cancels, for callers that run solves on pooled threads
+        if (reason == null && Thread.currentThread().isInterrupted()) reason = SolveResult.Status.CANCELLED;
+        if (reason != null) {
+            stopped = true;
+            stopReason = reason;
+        }
+        return stopped;
+    }
 
-        CubieCube mid = new CubieCube(start);
-        for (int i = 0; i < phase1Length; i++) mid.applyMove(solutionMoves[i], solutionPowers[i]);
+    private void recordPartial(int depth, int lowerBound) {
+        if (partialBound >= 0 && depth + lowerBound >= partialLength + partialBound) return;
+        System.arraycopy(solutionMoves, 0, partialMoves, 0, depth);
+        System.arraycopy(solutionPowers, 0, partialPowers, 0, depth);
+        partialLength = depth;
+        partialBound = lowerBound;
+    }
 
-        // Phase-2 iterative deepening on CP/SLICE with restricted moves (U/D any, others half-turn)
-        boolean phase2Found = false;
+    // Phase 2 only, continuing a phase-1 prefix found elsewhere (PipelinedSolver).
+    // Deepening stops as soon as the total could no longer beat bound.getAsInt().
+    // Returns null when no better solution exists for this endpoint.
+    String solvePhase2From(CubieCube start, byte[] prefix, int prefixLength,
+                           int cp, int sl, int udEp, int ue, int de, IntSupplier bound) {
+        return solvePhase2From(start, prefix, prefixLength, cp, sl, udEp, ue, de, bound, SolveBudget.UNLIMITED);
+    }
+
+    // The same under a budget's time, node and cancellation limits (not its max length: that is bound's job);
+    // null also when the budget runs out
+    String solvePhase2From(CubieCube start, byte[] prefix, int prefixLength,
+                           int cp, int sl, int udEp, int ue, int de, IntSupplier bound, SolveBudget budget) {
+        MoveTables.init();
+        LightPruningTables.buildAllBlocking();
+
+        beginBudget(budget, System.nanoTime());
+        this.startCube = new CubieCube(start);
+        this.startPacked = PackedCube.from(start);
+        phase1Nodes = 0;
+        phase2Nodes = 0;
+        phase1Nanos = 0;
+        costTables = costModel == null ? null : costModel.tables();
+        phase2MoveCap = MAX_DEPTH;
+        phase1Length = prefixLength;
         phase2Length = 0;
-        int midCP = mid.getCornerPermCoord();
-        int midSL = mid.getUDSliceCoord();
-        int midUD = mid.getUDEdgePermCoord();
-        int midUE = mid.getUEdgePermCoord();
-        int midDE = mid.getDEdgePermCoord();
-        int h2Start = heuristicPhase2Coord(midCP, midSL, midUD, midUE, midDE);
+        for (int i = 0; i < prefixLength; i++) {
+            solutionMoves[i] = prefix[i] / 3;
+            solutionPowers[i] = prefix[i] % 3 + 1;
+        }
+
+        boolean phase2Found = false;
+        int h2Start = h2(cp, sl, udEp, ue, de);
         for (int depth2 = h2Start; depth2 <= MAX_DEPTH; depth2++) {
-            if (Thread.currentThread().isInterrupted()) break;
-            if (searchPhase2Coord(midCP, midSL, midUD, midUE, midDE, 0, depth2, -1)) {
+            if (stopped) return null;
+            if (prefixLength + depth2 >= bound.getAsInt()) return null;
+            if (searchPhase2Coord(cp, sl, udEp, ue, de, 0, 0, depth2, -1)) {
                 phase2Found = true;
                 break;
             }
         }
+        if (!phase2Found) return null;
+
+        String sol = assembleSolution(start);
+        return sol.isEmpty() ? null : sol;
+    }
+
+    // Phase-2 iterative deepening from a phase-1 endpoint at phase1Length
+    private boolean runPhase2(int cp, int sl, int udEp, int ue, int de, int maxDepth2, int maxLimit2) {
+        SolverEvents.Phase2Search ev = new SolverEvents.Phase2Search();
+        ev.begin();
+        boolean found = phase2(cp, sl, udEp, ue, de, maxDepth2, maxLimit2);
+        if (trace != null) trace.add(SearchTrace.P2_RESULT, found ? 1 : 0, found ? phase2Length : 0, 0, phase1Nodes + phase2Nodes);
+        ev.end();
+        if (ev.shouldCommit()) {
+            ev.phase1Length = phase1Length;
+            ev.found = found;
+            ev.phase2Length = found ? phase2Length : 0;
+            ev.commit();
+        }
+        return found;
+    }
 
-        if (!phase2Found) {
-            return "";
+    private boolean phase2(int cp, int sl, int udEp, int ue, int de, int maxDepth2, int maxLimit2) {
+        if (useFringe && weight16 == WEIGHT_ONE && costModel == null) {
+            if (fringe == null) fringe = new FringePhase2Search(FRINGE_NODE_CAP, SolveBudget.DEFAULT_CHECK_INTERVAL, this::pollBudget);
+            // slice edge order is not tracked in phase 1; the endpoint is reached once, so replay it
+            CubieCube mid = new CubieCube(startCube);
+            for (int i = 0; i < phase1Length; i++) mid.applyMove(solutionMoves[i], solutionPowers[i]);
+            if (trace != null) trace.add(SearchTrace.P2_ITERATION, maxDepth2, phase1Length, 1, phase1Nodes + phase2Nodes);
+            int n = fringe.search(cp, udEp, mid.getEdge4PosPermCoord(8), maxDepth2, blockOpposite,
+                    solutionMoves, solutionPowers, phase1Length);
+            phase2Nodes += fringe.getNodes();
+            if (n >= 0) {
+                phase2Length = n;
+                return true;
+            }
+            if (n == FringePhase2Search.NOT_FOUND) return false;
+            fringeFallbacks++;
         }
+        phase2MoveCap = maxDepth2;
+        // the outer total-cost loop already deepens one unit at a time, so any solution
+        // within the remaining budget is as cheap as this iteration allows
+        if (costModel != null) return searchPhase2Coord(cp, sl, udEp, ue, de, 0, 0, maxLimit2, -1);
+        int h2Start = h2(cp, sl, udEp, ue, de);
+        for (int limit2 = h2Start; limit2 <= maxLimit2; limit2++) {
+            if (stopped) return false;
+            if (trace != null) trace.add(SearchTrace.P2_ITERATION, limit2, phase1Length, 0, phase1Nodes + phase2Nodes);
+            if (searchPhase2Coord(cp, sl, udEp, ue, de, 0, 0, limit2, -1)) return true;
+        }
+        return false;
+    }
 
+    private String assembleSolution(CubieCube start) {
         int total = phase1Length + phase2Length;
 
         for (int i = total; i < solutionMoves.length; i++) { solutionMoves[i] = 0; solutionPowers[i] = 0; }
 
 
-        StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < total; i++) {
-            sb.append(Moves.moveToString(solutionMoves[i], solutionPowers[i]));
-            if (i < total - 1) sb.append(' ');
-        }
-        String sol = sb.toString();
+        String sol = movesToString(solutionMoves, solutionPowers, total);
 
-        CubieCube test = new CubieCube(start);
+        PackedCube test = PackedCube.from(start);
         for (int i = 0; i < total; i++) test.applyMove(solutionMoves[i], solutionPowers[i]);
         if (!test.isSolved()) return "";
 
         return sol;
     }
 
+    private static String movesToString(int[] moves, int[] powers, int length) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            sb.append(Moves.moveToString(moves[i], powers[i]));
+            if (i < length - 1) sb.append(' ');
+        }
+        return sb.toString();
+    }
+
     public int getPhase1Length() { return phase1Length; }
     public int getPhase2Length() { return phase2Length; }
+    public long getPhase1Nodes() { return phase1Nodes; }
+    public long getPhase2Nodes() { return phase2Nodes; }
+    public long getPhase1Nanos() { return phase1Nanos; }
+    public long getFringeFallbacks() { return fringeFallbacks; }
     public int[] getSolutionMovesArray() { return solutionMoves; }
     public int[] getSolutionPowersArray() { return solutionPowers; }
 
-    private int heuristicPhase1Coord(int co, int eo, int sl) {
+    static int heuristicPhase1Coord(int co, int eo, int sl) {
         int hCo = LightPruningTables.coSlicePrun[co * LightPruningTables.N_SLICE + sl];
         int hEo = LightPruningTables.eoSlicePrun[eo * LightPruningTables.N_SLICE + sl];
         if (hCo < 0) hCo = 0;
@@ -101,7 +362,7 @@ public class TwoPhaseIDA {
         return Math.max(hCo, hEo);
     }
 
-    private int heuristicPhase2Coord(int cp, int sl, int udEp, int ue, int de) {
+    static int heuristicPhase2Coord(int cp, int sl, int udEp, int ue, int de) {
 
         int parity = LightPruningTables.permParityFromCoord(udEp) & 1;
         int hCp = LightPruningTables.cpPrunP2[cp];
@@ -121,17 +382,62 @@ public class TwoPhaseIDA {
         return Math.max(Math.max(combo, hUd), Math.max(hUe, hDe));
     }
 
-    // Phase-1 search using coordinates
-    private boolean searchPhase1Coord(int co, int eo, int sl, int depth, int limit, int lastMove) {
-        if (Thread.currentThread().isInterrupted()) return false;
+    // Heuristics in the units of the active cost model. Face-turn distances times the
+    // cheapest move cost stay admissible, so the FTM tables still contribute.
+    private int h1(int co, int eo, int sl) {
         int h = heuristicPhase1Coord(co, eo, sl);
-        if (depth + h > limit) return false;
+        if (costTables == null) return h;
+        return Math.max(h * costModel.minCost(), costTables.phase1(co, eo, sl));
+    }
+
+    private int h2(int cp, int sl, int udEp, int ue, int de) {
+        int h = heuristicPhase2Coord(cp, sl, udEp, ue, de);
+        if (costTables == null) return h;
+        return Math.max(h * costModel.minCost(), costTables.phase2(cp, udEp));
+    }
+
+    private int moveCost(int move, int power) {
+        return costModel == null ? 1 : costModel.cost(move, power);
+    }
+
+    // Phase-1 search using coordinates; depth counts moves, g their cost (equal in FTM)
+    // cp, u4 and d4 ride along so phase-2 cost is known at the endpoint without replaying the cube
+    private boolean searchPhase1Coord(int co, int eo, int sl, int cp, int u4, int d4, int depth, int g, int limit, int lastMove) {
+        if (outOfBudget()) return false;
+        phase1Nodes++;
+        int h = h1(co, eo, sl);
+        if (HeuristicProfiler.ENABLED && costTables == null) profiler.phase1(co, eo, sl, h, g, limit, weight16);
+        if (g * WEIGHT_ONE + weight16 * h > limit * WEIGHT_ONE) return false;
 
         if (co == 0 && eo == 0 && sl == SLICE_SOLVED) {
+            phase1Leaves++;
+            if (phase1Nanos == 0) phase1Nanos = System.nanoTime() - phase1Start;
+            leafCube.setUDEdgesFromEdge4Coords(u4, d4);
+            int ud = leafCube.getUDEdgePermCoord();
+            int ue = leafCube.getUEdgePermCoord();
+            int de = leafCube.getDEdgePermCoord();
+            int maxDepth2 = (int) Math.min(MAX_DEPTH, (long) maxLength - depth);
+            int h2Ftm = heuristicPhase2Coord(cp, SLICE_SOLVED, ud, ue, de);
+            recordPartial(depth, h2Ftm);
+            if (h2Ftm > maxDepth2) {
+                if (trace != null) trace.add(SearchTrace.ENDPOINT_PRUNED, depth, h2Ftm, maxDepth2, phase1Nodes + phase2Nodes);
+                return false;
+            }
+            // under a cost model the phase-1 limit bounds the total cost, the rest is phase 2's
+            int maxLimit2 = costModel == null ? maxDepth2 : Math.min(maxDepth2 * costModel.maxCost(), limit - g);
+            if (costTables != null && h2(cp, SLICE_SOLVED, ud, ue, de) > maxLimit2) return false;
             phase1Length = depth;
-            return true;
+            if (trace != null) trace.add(SearchTrace.PHASE_SWITCH, depth, h2Ftm, maxDepth2, phase1Nodes + phase2Nodes);
+            return runPhase2(cp, SLICE_SOLVED, ud, ue, de, maxDepth2, maxLimit2);
         }
 
+        if (depth >= MAX_DEPTH) return false;
+        // dead-end facts are in face turns and admissible pruning, so the table only serves the
+        // unweighted FTM search; a weighted cutoff is not a real dead end
+        Phase1TranspositionTable tt = costModel == null && weight16 == WEIGHT_ONE ? PHASE1_TT : null;
+        if (tt != null && tt.isDeadEnd(co, eo, sl, lastMove, limit - depth)) return false;
+        long leavesBefore = phase1Leaves;
+
         // generate moves with heuristic ordering
         ArrayList<MoveChoice> choices = new ArrayList<>();
         for (int move = 0; move < 6; move++) {
@@ -141,53 +447,61 @@ public class TwoPhaseIDA {
                 int nco = MoveTables.applyCO(move, p, co);
                 int neo = MoveTables.applyEO(move, p, eo);
                 int nsl = MoveTables.applySlice(move, p, sl);
-                int nh = heuristicPhase1Coord(nco, neo, nsl);
+                int nh = h1(nco, neo, nsl);
                 choices.add(new MoveChoice(move, p, nh));
             }
         }
         choices.sort(Comparator.comparingInt(a -> a.h));
 
         for (MoveChoice mc : choices) {
-            if (Thread.currentThread().isInterrupted()) return false;
+            if (stopped) return false;
             int nco = MoveTables.applyCO(mc.move, mc.p, co);
             int neo = MoveTables.applyEO(mc.move, mc.p, eo);
             int nsl = MoveTables.applySlice(mc.move, mc.p, sl);
+            int ncp = MoveTables.applyCP(mc.move, mc.p, cp);
+            int nu4 = MoveTables.applyUEdge4(mc.move, mc.p, u4);
+            int nd4 = MoveTables.applyDEdge4(mc.move, mc.p, d4);
             solutionMoves[depth] = mc.move;
             solutionPowers[depth] = mc.p;
-            if (searchPhase1Coord(nco, neo, nsl, depth + 1, limit, mc.move)) return true;
+            if (searchPhase1Coord(nco, neo, nsl, ncp, nu4, nd4, depth + 1, g + moveCost(mc.move, mc.p), limit, mc.move)) return true;
         }
 
+        // a stopped subtree was not fully explored, and one that reached an endpoint
+        // failed for phase-2 reasons, so neither proves a phase-1 dead end
+        if (tt != null && phase1Leaves == leavesBefore && !stopped) {
+            tt.recordDeadEnd(co, eo, sl, lastMove, limit - depth);
+        }
         return false;
     }
 
     // Phase-2 search (restricted moves) using coordinates
-    private boolean searchPhase2Coord(int cp, int sl, int udEp, int ue, int de, int depth, int limit, int lastMove) {
-        if (Thread.currentThread().isInterrupted()) return false;
-        int h = heuristicPhase2Coord(cp, sl, udEp, ue, de);
-        if (depth + h > limit) return false;
+    private boolean searchPhase2Coord(int cp, int sl, int udEp, int ue, int de, int depth, int g, int limit, int lastMove) {
+        if (outOfBudget()) return false;
+        phase2Nodes++;
+        int h = h2(cp, sl, udEp, ue, de);
+        if (HeuristicProfiler.ENABLED && costTables == null) profiler.phase2(cp, sl, udEp, ue, de, h, g, limit, weight16);
+        if (g * WEIGHT_ONE + weight16 * h > limit * WEIGHT_ONE) return false;
 
          if (cp == 0 && sl == SLICE_SOLVED && udEp == 0 && ue == 0 && de == 0) {
             // Assemble full solution (phase1 + this phase2 prefix) and verify final cube
             // phase2 moves occupy indices [phase1Length .. phase1Length + depth - 1]
-            CubieCube assembled = new CubieCube(startCube);
-            for (int i = 0; i < phase1Length; i++) assembled.applyMove(solutionMoves[i], solutionPowers[i]);
-            for (int i = 0; i < depth; i++) {
-                int idx = phase1Length + i;
-                assembled.applyMove(solutionMoves[idx], solutionPowers[idx]);
-            }
-            if (!assembled.isSolved()) {
+            replay.set(startPacked);
+            for (int i = 0; i < phase1Length + depth; i++) replay.applyMove(solutionMoves[i], solutionPowers[i]);
+            if (!replay.isSolved()) {
                 // do not accept this candidate; continue searching
+                if (trace != null) trace.add(SearchTrace.GOAL_REJECTED, phase1Length, depth, 0, phase1Nodes + phase2Nodes);
                 return false;
             }
             phase2Length = depth;
             return true;
         }
+        if (depth >= phase2MoveCap) return false;
 
         ArrayList<MoveChoice> choices = new ArrayList<>();
         int baseH = h;
         for (int move = 0; move < 6; move++) {
             if (lastMove >= 0) {
-                if (BLOCK_OPPOSITE_IN_PHASE2) {
+                if (blockOpposite) {
                     if (Moves.blockPhase2Follow(lastMove, move)) continue;
                 } else if (lastMove == move) continue;
             }
@@ -199,7 +513,7 @@ public class TwoPhaseIDA {
                 int nud = MoveTables.applyUDEP(move, p, udEp);
                 int nue = MoveTables.applyUEdge(move, p, ue);
                 int nde = MoveTables.applyDEdge(move, p, de);
-                int nh = heuristicPhase2Coord(ncp, nsl, nud, nue, nde);
+                int nh = h2(ncp, nsl, nud, nue, nde);
                 int delta = baseH - nh;
                 boolean preferUD = (move == Moves.U || move == Moves.D);
                 choices.add(new MoveChoice(move, p, nh, delta, preferUD));
@@ -214,7 +528,7 @@ public class TwoPhaseIDA {
         });
 
         for (MoveChoice mc : choices) {
-            if (Thread.currentThread().isInterrupted()) return false;
+            if (stopped) return false;
             int ncp = MoveTables.applyCP(mc.move, mc.p, cp);
             int nsl = MoveTables.applySlice(mc.move, mc.p, sl);
             int nud = MoveTables.applyUDEP(mc.move, mc.p, udEp);
@@ -223,7 +537,7 @@ public class TwoPhaseIDA {
             int idx = phase1Length + depth;
             solutionMoves[idx] = mc.move;
             solutionPowers[idx] = mc.p;
-            if (searchPhase2Coord(ncp, nsl, nud, nue, nde, depth + 1, limit, mc.move)) return true;
+            if (searchPhase2Coord(ncp, nsl, nud, nue, nde, depth + 1, g + moveCost(mc.move, mc.p), limit, mc.move)) return true;
         }
 
         return false;
@@ -41,36 +41,9 @@ public class VerifyAllSolutions {
         return cc.isSolved();
     }
 
-    // simple parser for sequences like "U R2 F' ..."
+    // spaced ("U R2 F' ...") or compact notation
     private static int parse(String seq, int[] mv, int[] pw) {
-        if (seq == null || seq.trim().isEmpty()) return 0;
-        String trimmed = seq.trim();
-        if (CompactMoveEncoder.looksCompact(trimmed)) {
-            return CompactMoveEncoder.parseCompact(trimmed, mv, pw);
-        }
-        String[] toks = trimmed.split("\\s+");
-        int idx = 0;
-        for (String t : toks) {
-            if (t.isEmpty()) continue;
-            int power = 1;
-            if (t.endsWith("2")) { power = 2; t = t.substring(0, t.length()-1); }
-            else if (t.endsWith("'")) { power = 3; t = t.substring(0, t.length()-1); }
-            if (t.isEmpty()) continue;
-            char c = Character.toUpperCase(t.charAt(0));
-            int move = switch (c) {
-                case 'U' -> Moves.U;
-                case 'R' -> Moves.R;
-                case 'F' -> Moves.F;
-                case 'D' -> Moves.D;
-                case 'L' -> Moves.L;
-                case 'B' -> Moves.B;
-                default -> -1;
-            };
-            if (move < 0) continue;
-            mv[idx] = move;
-            pw[idx] = power;
-            idx++;
-        }
-        return idx;
+        if (seq == null) return 0;
+        return Moves.parseSequence(seq, mv, pw);
     }
 }
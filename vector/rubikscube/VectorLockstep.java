@@ -0,0 +1,217 @@
+package rubikscube;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Experimental batch engine that advances cube states in lockstep on the Vector API: each
+ * move-table or pruning-table lookup is one gather over LANES states: 8 with the default
+ * -Dlockstep.bits=256 (AVX2), 16 with 512 (AVX-512). 256 is the default because C2 in
+ * JDK 17.0.9 crashed (SIGSEGV) in childHeuristics with 512-bit int gathers. States are coordinates, structure-of-arrays: corner twist, edge flip and
+ * UD-slice position for the phase-1 bound, plus corner permutation and the U/D/slice
+ * edge4 coordinates, which together fix the whole cube. Move tables are flattened to
+ * [move index * N + coord] so a lane's own move is just part of its gather index, and the
+ * two phase-1 pruning tables are widened to int (clamped at 0) because gathers work on
+ * int lanes.
+ *
+ * jdk.incubator.vector is not resolved by default, so this source root is compiled on its
+ * own, against the main classes, and never by the main build:
+ *   javac -d out/main src/rubikscube/*.java
+ *   javac --add-modules jdk.incubator.vector -cp out/main -d out/vector vector/rubikscube/*.java
+ *   java --add-modules jdk.incubator.vector -cp out/main:out/vector rubikscube.VectorLockstepBenchmark
+ * Nothing in src/ depends on it. Needs MoveTables and LightPruningTables.
+ */
+public final class VectorLockstep {
+
+    static final VectorSpecies<Integer> SPECIES =
+            VectorSpecies.of(int.class, VectorShape.forBitSize(Integer.getInteger("lockstep.bits", 256)));
+    public static final int LANES = SPECIES.length();
+
+    private static final int N_CO = LightPruningTables.N_CO;
+    private static final int N_EO = LightPruningTables.N_EO;
+    private static final int N_SLICE = LightPruningTables.N_SLICE;
+    private static final int N_CP = LightPruningTables.N_CP;
+    private static final int N_EDGE4 = MoveTables.N_EDGE4;
+
+    private static int[] CO_MOVE, EO_MOVE, SLICE_MOVE, CP_MOVE, U4_MOVE, D4_MOVE, S4_MOVE;
+    private static int[] CO_PRUN, EO_PRUN;
+    private static int U4_SOLVED, D4_SOLVED, S4_SOLVED;
+
+    // lanes rounded up to a multiple of LANES; the padding lanes hold the solved cube
+    public final int size;
+    private final int capacity;
+    final int[] co, eo, slice, cp, u4, d4, s4;
+    // gather index scratch
+    private final int[] idx;
+
+    public VectorLockstep(int size) {
+        initTables();
+        this.size = size;
+        capacity = (size + LANES - 1) / LANES * LANES;
+        co = new int[capacity];
+        eo = new int[capacity];
+        slice = new int[capacity];
+        cp = new int[capacity];
+        u4 = new int[capacity];
+        d4 = new int[capacity];
+        s4 = new int[capacity];
+        idx = new int[LANES];
+        CubieCube solved = new CubieCube();
+        for (int i = 0; i < capacity; i++) load(i, solved);
+    }
+
+    private static synchronized void initTables() {
+        if (CO_MOVE != null) return;
+        CO_MOVE = flatten(MoveTables.coMove, N_CO);
+        EO_MOVE = flatten(MoveTables.eoMove, N_EO);
+        SLICE_MOVE = flatten(MoveTables.sliceMove, N_SLICE);
+        CP_MOVE = flatten(MoveTables.cpMove, N_CP);
+        U4_MOVE = flatten(MoveTables.uEdge4Move, N_EDGE4);
+        D4_MOVE = flatten(MoveTables.dEdge4Move, N_EDGE4);
+        S4_MOVE = flatten(MoveTables.sliceEdge4Move, N_EDGE4);
+        CO_PRUN = widen(LightPruningTables.coSlicePrun);
+        EO_PRUN = widen(LightPruningTables.eoSlicePrun);
+        CubieCube solved = new CubieCube();
+        U4_SOLVED = solved.getEdge4PosPermCoord(CubieCube.UR);
+        D4_SOLVED = solved.getEdge4PosPermCoord(CubieCube.DR);
+        S4_SOLVED = solved.getEdge4PosPermCoord(CubieCube.FR);
+    }
+
+    private static int[] flatten(int[][][] table, int n) {
+        int[] flat = new int[18 * n];
+        for (int move = 0; move < 6; move++) {
+            for (int p = 1; p <= 3; p++) System.arraycopy(table[move][p], 0, flat, (move * 3 + p - 1) * n, n);
+        }
+        return flat;
+    }
+
+    private static int[] widen(byte[] prun) {
+        int[] w = new int[prun.length];
+        for (int i = 0; i < prun.length; i++) w[i] = Math.max(prun[i], 0);
+        return w;
+    }
+
+    public void load(int lane, CubieCube c) {
+        co[lane] = c.getCornerOriCoord();
+        eo[lane] = c.getEdgeOriCoord();
+        slice[lane] = c.getUDSliceCoord();
+        cp[lane] = c.getCornerPermCoord();
+        u4[lane] = c.getEdge4PosPermCoord(CubieCube.UR);
+        d4[lane] = c.getEdge4PosPermCoord(CubieCube.DR);
+        s4[lane] = c.getEdge4PosPermCoord(CubieCube.FR);
+    }
+
+    // table[offset + a * stride + b] for every lane of a block
+    private IntVector gather2(int[] table, int offset, IntVector a, int stride, IntVector b) {
+        a.mul(stride).add(b).intoArray(idx, 0);
+        return IntVector.fromArray(SPECIES, table, offset, idx, 0);
+    }
+
+    // Phase-1 lower bound of every lane (TwoPhaseIDA.heuristicPhase1Coord)
+    public void phase1Heuristic(int[] out) {
+        for (int i = 0; i < capacity; i += LANES) {
+            IntVector s = IntVector.fromArray(SPECIES, slice, i);
+            IntVector hCo = gather2(CO_PRUN, 0, IntVector.fromArray(SPECIES, co, i), N_SLICE, s);
+            IntVector hEo = gather2(EO_PRUN, 0, IntVector.fromArray(SPECIES, eo, i), N_SLICE, s);
+            store(hCo.max(hEo), out, i, size);
+        }
+    }
+
+    // Phase-1 lower bound of the 18 children of every lane: out[m * size + lane], lanes unchanged
+    public void childHeuristics(int[] out) {
+        for (int i = 0; i < capacity; i += LANES) {
+            for (int m = 0; m < 18; m++) {
+                IntVector s = IntVector.fromArray(SPECIES, SLICE_MOVE, m * N_SLICE, slice, i);
+                IntVector c = IntVector.fromArray(SPECIES, CO_MOVE, m * N_CO, co, i);
+                IntVector e = IntVector.fromArray(SPECIES, EO_MOVE, m * N_EO, eo, i);
+                IntVector h = gather2(CO_PRUN, 0, c, N_SLICE, s).max(gather2(EO_PRUN, 0, e, N_SLICE, s));
+                store(h, out, m * size + i, m * size + Math.min(i + LANES, size));
+            }
+        }
+    }
+
+    // v into out[from ..), stopping at out[end) so padding lanes never leave the batch
+    private static void store(IntVector v, int[] out, int from, int end) {
+        if (end - from >= LANES) {
+            v.intoArray(out, from);
+        } else {
+            for (int k = 0; from + k < end; k++) out[from + k] = v.lane(k);
+        }
+    }
+
+    // One move per lane (move * 3 + power - 1, from steps[lane]); a negative entry leaves the lane as it is
+    public void applyMoves(int[] steps) {
+        for (int i = 0; i < capacity; i += LANES) {
+            IntVector step = IntVector.fromArray(SPECIES, steps, i);
+            VectorMask<Integer> live = step.compare(VectorOperators.GE, 0);
+            IntVector m = step.max(0);
+            advance(co, CO_MOVE, N_CO, m, live, i);
+            advance(eo, EO_MOVE, N_EO, m, live, i);
+            advance(slice, SLICE_MOVE, N_SLICE, m, live, i);
+            advance(cp, CP_MOVE, N_CP, m, live, i);
+            advance(u4, U4_MOVE, N_EDGE4, m, live, i);
+            advance(d4, D4_MOVE, N_EDGE4, m, live, i);
+            advance(s4, S4_MOVE, N_EDGE4, m, live, i);
+        }
+    }
+
+    private void advance(int[] lanes, int[] table, int n, IntVector m, VectorMask<Integer> live, int i) {
+        IntVector cur = IntVector.fromArray(SPECIES, lanes, i);
+        cur.blend(gather2(table, 0, m, n, cur), live).intoArray(lanes, i);
+    }
+
+    // Solved flags of the block starting at lane i (a multiple of LANES)
+    private VectorMask<Integer> solved(int i) {
+        return IntVector.fromArray(SPECIES, co, i).compare(VectorOperators.EQ, 0)
+                .and(IntVector.fromArray(SPECIES, eo, i).compare(VectorOperators.EQ, 0))
+                .and(IntVector.fromArray(SPECIES, cp, i).compare(VectorOperators.EQ, 0))
+                .and(IntVector.fromArray(SPECIES, u4, i).compare(VectorOperators.EQ, U4_SOLVED))
+                .and(IntVector.fromArray(SPECIES, d4, i).compare(VectorOperators.EQ, D4_SOLVED))
+                .and(IntVector.fromArray(SPECIES, s4, i).compare(VectorOperators.EQ, S4_SOLVED));
+    }
+
+    // Replays moves[k][0..lengths[k]) (move * 3 + power - 1) on starts[k] for every k, in
+    // batches of `batch` lanes; ok[k] tells whether the result is solved
+    public static void verify(CubieCube[] starts, byte[][] moves, int[] lengths, boolean[] ok, int batch) {
+        VectorLockstep b = new VectorLockstep(batch);
+        int[] step = new int[b.capacity];
+        for (int first = 0; first < starts.length; first += batch) {
+            int n = Math.min(batch, starts.length - first);
+            int maxLen = 0;
+            CubieCube solved = new CubieCube();
+            for (int k = 0; k < b.capacity; k++) {
+                b.load(k, k < n ? starts[first + k] : solved);
+                if (k < n) maxLen = Math.max(maxLen, lengths[first + k]);
+            }
+            for (int t = 0; t < maxLen; t++) {
+                for (int k = 0; k < b.capacity; k++) step[k] = k < n && t < lengths[first + k] ? moves[first + k][t] : -1;
+                b.applyMoves(step);
+            }
+            for (int i = 0; i < n; i += LANES) {
+                VectorMask<Integer> s = b.solved(i);
+                for (int k = 0; k < LANES && i + k < n; k++) ok[first + i + k] = s.laneIsSet(k);
+            }
+        }
+    }
+
+    // Move-table construction: fills power 2 and 3 of table[move] from power 1, as
+    // T2[c] = T1[T1[c]] and T3[c] = T1[T2[c]], where the index map of each gather is the
+    // previous power's row itself
+    public static void composePowers(int[][][] table, int n) {
+        for (int move = 0; move < 6; move++) {
+            int[] t1 = table[move][1], t2 = table[move][2], t3 = table[move][3];
+            int c = 0;
+            for (int bound = SPECIES.loopBound(n); c < bound; c += LANES) {
+                IntVector.fromArray(SPECIES, t1, 0, t1, c).intoArray(t2, c);
+                IntVector.fromArray(SPECIES, t1, 0, t2, c).intoArray(t3, c);
+            }
+            for (; c < n; c++) {
+                t2[c] = t1[t1[c]];
+                t3[c] = t1[t2[c]];
+            }
+        }
+    }
+}
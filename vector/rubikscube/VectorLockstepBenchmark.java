@@ -0,0 +1,159 @@
+package rubikscube;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * VectorLockstep against the scalar path, each result checked against the other:
+ *   root heuristics - phase-1 bound of -Dcubes=200000 states and their 18 children
+ *                     (scalar: TwoPhaseIDA.heuristicPhase1Coord over MoveTables per state)
+ *   move tables     - powers 2 and 3 of the co/eo/slice/cp/edge4 move tables composed from power 1
+ *                     (scalar: the same composition one coordinate at a time), checked against MoveTables
+ *   verification    - 100000 20-move solutions replayed, every 7th broken (scalar: PackedCube)
+ * Build and run as described in VectorLockstep; -Dlockstep.batch=1024 lanes per batch.
+ */
+public final class VectorLockstepBenchmark {
+
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) {
+        int cubes = Integer.getInteger("cubes", 200_000);
+        int batch = Integer.getInteger("lockstep.batch", 1024);
+        MoveTables.init();
+        LightPruningTables.buildAllBlocking();
+        System.out.println("species " + VectorLockstep.SPECIES + ", " + VectorLockstep.LANES + " lanes, batches of " + batch);
+        rootHeuristics(cubes, batch);
+        moveTables();
+        verification(Math.min(cubes, 100_000), batch);
+    }
+
+    private static void rootHeuristics(int n, int batch) {
+        ScrambleGenerator gen = new ScrambleGenerator(21);
+        int[] co = new int[n], eo = new int[n], sl = new int[n];
+        VectorLockstep[] batches = new VectorLockstep[(n + batch - 1) / batch];
+        CubieCube c = new CubieCube();
+        for (int i = 0; i < n; i++) {
+            gen.uniform(c);
+            co[i] = c.getCornerOriCoord();
+            eo[i] = c.getEdgeOriCoord();
+            sl[i] = c.getUDSliceCoord();
+            if (i % batch == 0) batches[i / batch] = new VectorLockstep(Math.min(batch, n - i));
+            batches[i / batch].load(i % batch, c);
+        }
+        int[] h = new int[batch], kids = new int[18 * batch];
+        System.out.println("root heuristics: the state and its 18 children, ns per state");
+        System.out.println("round    scalar    vector");
+        for (int round = 1; round <= ROUNDS; round++) {
+            long sumScalar = 0, sumVector = 0;
+            long t0 = System.nanoTime();
+            for (int i = 0; i < n; i++) {
+                sumScalar += TwoPhaseIDA.heuristicPhase1Coord(co[i], eo[i], sl[i]);
+                for (int move = 0; move < 6; move++) {
+                    for (int p = 1; p <= 3; p++) {
+                        sumScalar += TwoPhaseIDA.heuristicPhase1Coord(MoveTables.coMove[move][p][co[i]],
+                                MoveTables.eoMove[move][p][eo[i]], MoveTables.sliceMove[move][p][sl[i]]);
+                    }
+                }
+            }
+            long tScalar = System.nanoTime() - t0;
+            t0 = System.nanoTime();
+            for (VectorLockstep b : batches) {
+                b.phase1Heuristic(h);
+                b.childHeuristics(kids);
+                for (int k = 0; k < b.size; k++) sumVector += h[k];
+                for (int k = 0; k < 18 * b.size; k++) sumVector += kids[k];
+            }
+            long tVector = System.nanoTime() - t0;
+            if (sumScalar != sumVector) throw new IllegalStateException("heuristic sums differ: " + sumScalar + " vs " + sumVector);
+            System.out.printf("%5d %9.1f %9.1f%n", round, tScalar / (double) n, tVector / (double) n);
+        }
+    }
+
+    private static void moveTables() {
+        int[][][][] source = {MoveTables.coMove, MoveTables.eoMove, MoveTables.sliceMove, MoveTables.cpMove,
+                MoveTables.uEdge4Move, MoveTables.dEdge4Move, MoveTables.sliceEdge4Move};
+        int[] sizes = {LightPruningTables.N_CO, LightPruningTables.N_EO, LightPruningTables.N_SLICE,
+                LightPruningTables.N_CP, MoveTables.N_EDGE4, MoveTables.N_EDGE4, MoveTables.N_EDGE4};
+        // power 1 only; powers 2 and 3 are rebuilt each round
+        int[][][][] work = new int[source.length][6][4][];
+        long entries = 0;
+        for (int t = 0; t < source.length; t++) {
+            for (int m = 0; m < 6; m++) {
+                work[t][m][1] = source[t][m][1].clone();
+                work[t][m][2] = new int[sizes[t]];
+                work[t][m][3] = new int[sizes[t]];
+            }
+            entries += 12L * sizes[t];
+        }
+        System.out.println("move tables: powers 2 and 3 of 7 tables from power 1 (" + entries + " entries), ms");
+        System.out.println("round    scalar    vector");
+        for (int round = 1; round <= ROUNDS; round++) {
+            long t0 = System.nanoTime();
+            for (int t = 0; t < work.length; t++) {
+                for (int m = 0; m < 6; m++) {
+                    int[] t1 = work[t][m][1], t2 = work[t][m][2], t3 = work[t][m][3];
+                    for (int c = 0; c < sizes[t]; c++) {
+                        t2[c] = t1[t1[c]];
+                        t3[c] = t1[t2[c]];
+                    }
+                }
+            }
+            long tScalar = System.nanoTime() - t0;
+            check(work, source);
+            for (int[][][] table : work) for (int[][] row : table) { Arrays.fill(row[2], 0); Arrays.fill(row[3], 0); }
+            t0 = System.nanoTime();
+            for (int t = 0; t < work.length; t++) VectorLockstep.composePowers(work[t], sizes[t]);
+            long tVector = System.nanoTime() - t0;
+            check(work, source);
+            System.out.printf("%5d %9.2f %9.2f%n", round, tScalar / 1e6, tVector / 1e6);
+        }
+    }
+
+    private static void check(int[][][][] work, int[][][][] source) {
+        for (int t = 0; t < work.length; t++) {
+            for (int m = 0; m < 6; m++) {
+                if (!Arrays.equals(work[t][m][2], source[t][m][2]) || !Arrays.equals(work[t][m][3], source[t][m][3])) {
+                    throw new IllegalStateException("composed table " + t + " move " + m + " differs from MoveTables");
+                }
+            }
+        }
+    }
+
+    private static void verification(int pairs, int batch) {
+        Random rnd = new Random(22);
+        CubieCube[] starts = new CubieCube[pairs];
+        byte[][] moves = new byte[pairs][20];
+        int[] lengths = new int[pairs];
+        for (int i = 0; i < pairs; i++) {
+            CubieCube s = new CubieCube();
+            for (int k = 0; k < 20; k++) {
+                int m = rnd.nextInt(18);
+                s.applyMove(m / 3, m % 3 + 1);
+                moves[i][19 - k] = (byte) (m / 3 * 3 + 2 - m % 3);
+            }
+            if (i % 7 == 3) moves[i][10] = (byte) ((moves[i][10] + 1) % 18);
+            starts[i] = s;
+            lengths[i] = 20;
+        }
+        boolean[] okScalar = new boolean[pairs], okVector = new boolean[pairs];
+        System.out.println("verification of " + pairs + " 20-move solutions, ns per pair");
+        System.out.println("round  PackedCube    vector");
+        PackedCube pc = new PackedCube();
+        for (int round = 1; round <= ROUNDS; round++) {
+            long t0 = System.nanoTime();
+            for (int i = 0; i < pairs; i++) {
+                pc.set(starts[i]);
+                for (int k = 0; k < lengths[i]; k++) pc.applyMove(moves[i][k] / 3, moves[i][k] % 3 + 1);
+                okScalar[i] = pc.isSolved();
+            }
+            long tScalar = System.nanoTime() - t0;
+            t0 = System.nanoTime();
+            VectorLockstep.verify(starts, moves, lengths, okVector, batch);
+            long tVector = System.nanoTime() - t0;
+            for (int i = 0; i < pairs; i++) {
+                if (okScalar[i] != okVector[i] || okScalar[i] == (i % 7 == 3)) throw new IllegalStateException("verification differs at " + i);
+            }
+            System.out.printf("%5d %11.1f %9.1f%n", round, tScalar / (double) pairs, tVector / (double) pairs);
+        }
+    }
+}